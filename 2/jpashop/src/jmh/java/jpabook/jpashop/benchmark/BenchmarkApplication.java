@@ -0,0 +1,30 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/* 벤치마크용 애플리케이션 컨텍스트 - bench 프로필(application-bench.yml), 웹서버 없이 실행한다.
+* 벤치마크(파라미터 조합)마다 다른 인메모리 DB를 사용하도록 database 이름을 받는다. */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        String[] all = Stream.concat(
+                        Stream.of("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1"),
+                        Arrays.stream(properties))
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("bench")
+                .properties(all)
+                .run();
+    }
+}
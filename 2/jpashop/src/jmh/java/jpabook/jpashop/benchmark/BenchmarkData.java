@@ -0,0 +1,102 @@
+package jpabook.jpashop.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/* 벤치마크용 데이터를 JDBC batch로 넣는다.
+* 엔티티로 100만건을 persist 하면 준비시간이 측정보다 길어지므로 테이블에 직접 넣는다.
+* InitDb가 시퀀스로 만든 데이터와 겹치지 않도록 ID_OFFSET 부터 아이디를 사용한다.
+* 주문 하나당 배송 1건, 주문상품 ITEMS_PER_ORDER 건 / 회원 하나당 주문 ORDERS_PER_MEMBER 건 */
+final class BenchmarkData {
+    static final long ID_OFFSET = 1_000_000_000L;
+    static final int ITEM_COUNT = 1_000;
+    static final int ITEMS_PER_ORDER = 2;
+    static final int ORDERS_PER_MEMBER = 10;
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private BenchmarkData() {
+    }
+
+    static void seed(JdbcTemplate jdbc, int orders) {
+        int members = Math.max(1, orders / ORDERS_PER_MEMBER);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        Batch items = new Batch(jdbc, "insert into item (dtype, item_id, name, price, stock_quantity, sharded_stock, version, author, isbn)" +
+                " values ('B', ?, ?, ?, ?, false, 0, ?, ?)");
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(ID_OFFSET + i, "BOOK-" + i, 10_000 + (i % 50) * 100, Integer.MAX_VALUE / 2, "author" + i, "isbn" + i);
+            items.flushIfFull();
+        }
+        items.flush();
+
+        Batch member = new Batch(jdbc, "insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)");
+        for (int i = 0; i < members; i++) {
+            member.add(ID_OFFSET + i, "member" + i, "city" + (i % 100), "street" + i, String.valueOf(10_000 + i % 90_000));
+            member.flushIfFull();
+        }
+        member.flush();
+
+        Batch delivery = new Batch(jdbc, "insert into delivery (delivery_id, city, street, zipcode, status, version) values (?, ?, ?, ?, 'READY', 0)");
+        Batch order = new Batch(jdbc, "insert into ordes (order_id, member_id, delivery_id, status, order_date, total_price, item_count, version) values (?, ?, ?, 'ORDER', ?, ?, ?, 0)");
+        Batch orderItem = new Batch(jdbc, "insert into order_item (order_item_id, item_id, order_id, order_price, count) values (?, ?, ?, ?, ?)");
+        for (int i = 0; i < orders; i++) {
+            long orderId = ID_OFFSET + i;
+            long memberId = ID_OFFSET + (i % members);
+            delivery.add(orderId, "city" + (i % 100), "street" + i, String.valueOf(10_000 + i % 90_000));
+            /* 주문상품 j의 수량은 1 + j, 가격은 10,000 */
+            order.add(orderId, memberId, orderId, Timestamp.valueOf(base.plusMinutes(i)),
+                    10_000 * ITEMS_PER_ORDER * (ITEMS_PER_ORDER + 1) / 2, ITEMS_PER_ORDER);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                long itemId = ID_OFFSET + (i * ITEMS_PER_ORDER + j) % ITEM_COUNT;
+                orderItem.add(orderId * ITEMS_PER_ORDER + j, itemId, orderId, 10_000, 1 + j);
+            }
+            /* 외래키 순서(배송 -> 주문 -> 주문상품)를 지키도록 주문 단위로 같이 내보낸다. */
+            if (order.isFull()) {
+                delivery.flush();
+                order.flush();
+                orderItem.flush();
+            }
+        }
+        delivery.flush();
+        order.flush();
+        orderItem.flush();
+    }
+
+    /* BATCH_SIZE 만큼 모아서 batchUpdate - 언제 내보낼지는 호출하는 쪽에서 정한다. */
+    private static final class Batch {
+        private final JdbcTemplate jdbc;
+        private final String sql;
+        private final List<Object[]> args = new ArrayList<>();
+
+        private Batch(JdbcTemplate jdbc, String sql) {
+            this.jdbc = jdbc;
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            args.add(row);
+        }
+
+        boolean isFull() {
+            return args.size() >= BATCH_SIZE;
+        }
+
+        void flushIfFull() {
+            if (isFull()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!args.isEmpty()) {
+                jdbc.batchUpdate(sql, args);
+                args.clear();
+            }
+        }
+    }
+}
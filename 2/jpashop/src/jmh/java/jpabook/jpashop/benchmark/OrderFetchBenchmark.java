@@ -0,0 +1,130 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.*;
+
+/* OrderApiController v3 ~ v6 조회 전략 비교
+* 같은 데이터(주문 orders 건, 주문당 상품 2건)에 대해 각 전략이 결과 DTO 까지 만드는데 걸리는 시간과
+* 할당량(-prof gc 의 gc.alloc.rate.norm)을 측정한다.
+*
+* - v3       : findAll(Order.GRAPH_SUMMARY) + default_batch_fetch_size로 컬렉션 지연로딩
+* - v3_fetch : findAll(Order.GRAPH_FULL) 컬렉션까지 엔티티 그래프로 fetch
+* - v4       : findOrderQueryDtos 주문마다 주문상품 조회 (N+1) - 주문 수가 많으면 매우 오래 걸린다.
+* - v5       : findAlBylDto_optimization 주문상품을 in 쿼리 한번으로 조회
+* - v5_parallel : findAlBylDto_parallel 주문상품 in 쿼리를 청크로 나눠 동시에 조회 (ParallelChunkQuery)
+* - v6       : findAlBylDto_flat 한번의 조인 후 정렬된 row를 한번 훑어서 조립 (OrderFlatAssembler)
+* - v6_groupingBy : 위와 같은 조회 후 groupingBy로 그룹핑 (row마다 키 DTO 할당)
+*
+* 각 측정은 readOnly 트랜잭션 하나에서 실행되고, 트랜잭션이 끝나면 영속성 컨텍스트도 비워진다.
+* batchFetchSize는 -p batchFetchSize=1,100,1000 처럼 바꿔서 v3를 비교할 수 있다. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class OrderFetchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int orders;
+
+    @Param({"100"})
+    int batchFetchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("fetch-" + orders + "-" + batchFetchSize,
+                "spring.jpa.properties.hibernate.default_batch_fetch_size=" + batchFetchSize);
+
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), orders);
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int v3_batchFetch() {
+        return readOnly.execute(status -> touch(orderRepository.findAll(Order.GRAPH_SUMMARY)));
+    }
+
+    @Benchmark
+    public int v3_fetchJoin() {
+        return readOnly.execute(status -> touch(orderRepository.findAll(Order.GRAPH_FULL)));
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> v4_perOrderQuery() {
+        return readOnly.execute(status -> orderQueryRepository.findOrderQueryDtos());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> v5_inQuery() {
+        return readOnly.execute(status -> orderQueryRepository.findAlBylDto_optimization());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> v5_parallel() {
+        return readOnly.execute(status -> orderQueryRepository.findAlBylDto_parallel());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> v6_flat() {
+        return readOnly.execute(status -> OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat()));
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> v6_groupingBy() {
+        return readOnly.execute(status -> group(orderQueryRepository.findAlBylDto_flat()));
+    }
+
+    /* 컨트롤러의 OrderDto 변환과 같은 연관관계를 초기화한다. */
+    private static int touch(List<Order> orders) {
+        int hash = 0;
+        for (Order order : orders) {
+            hash += order.getMember().getName().hashCode();
+            hash += order.getDelivery().getAddress().getCity().hashCode();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                hash += orderItem.getItem().getName().hashCode() + orderItem.getOrderPrice();
+            }
+        }
+        return hash;
+    }
+
+    /* 이전 OrderApiController.ordersv6 의 그룹핑 */
+    private static List<OrderQueryDto> group(List<OrderFlatDto> flats) {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,94 @@
+package jpabook.jpashop.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* 같은 상품 하나에 동시에 재고 차감 요청이 몰릴 때의 처리량 비교
+* - readModifyWrite   : 엔티티로 읽고 removeStock 후 dirty checking (기존 방식)
+*                       Item에 @Version이 있으므로 갱신 유실 대신 낙관적 락 예외(실패)로 나타난다.
+* - pessimisticLock   : select ... for update 로 읽고 removeStock
+* - conditionalUpdate : ItemRepository.decreaseStock 조건부 update 한번
+* 측정이 끝나면 성공한 차감 수와 실제 줄어든 재고를 비교해서 유실된 갱신 수를 출력한다.
+* ./gradlew jmh -Pjmh.includes=StockContentionBenchmark */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class StockContentionBenchmark {
+    private static final int INITIAL_STOCK = Integer.MAX_VALUE / 2;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager em;
+    private ItemRepository itemRepository;
+    private Long itemId;
+
+    private final AtomicLong decrements = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("stock");
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        itemRepository = context.getBean(ItemRepository.class);
+
+        itemId = transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("HOT ITEM");
+            book.setPrice(10000);
+            book.setStockQuantity(INITIAL_STOCK);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        int stock = transactionTemplate.execute(status -> em.find(Item.class, itemId).getStockQuantity());
+        long applied = INITIAL_STOCK - stock;
+        System.out.printf("%n[stock] 차감 성공 %d, 실제 차감 %d, 유실 %d, 실패(예외) %d%n",
+                decrements.get(), applied, decrements.get() - applied, failures.get());
+        context.close();
+    }
+
+    @Benchmark
+    public void readModifyWrite() {
+        decrement(() -> em.find(Item.class, itemId).removeStock(1));
+    }
+
+    @Benchmark
+    public void pessimisticLock() {
+        decrement(() -> em.find(Item.class, itemId, LockModeType.PESSIMISTIC_WRITE).removeStock(1));
+    }
+
+    @Benchmark
+    public void conditionalUpdate() {
+        decrement(() -> itemRepository.decreaseStock(itemId, 1));
+    }
+
+    /* 동시 update로 DB가 예외를 던지는 경우(락 타임아웃 등)도 측정을 멈추지 않고 실패로 센다. */
+    private void decrement(Runnable action) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+            decrements.incrementAndGet();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+        }
+    }
+}
@@ -5,11 +5,13 @@ import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 @Component
+@Profile("!seed")//seed 프로필에서는 DataSeeder가 데이터를 만든다.
 @RequiredArgsConstructor
 public class InitDb {
     private final InitService initService;
@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
@@ -13,8 +14,11 @@ public class JpashopApplication {
 	}
 
 	/* Laze로 설정한 내용의 경우 불러올때 해당 내용을 강제로 가져온다.
-	* 객체를 외부로 노출하지 않을 경우 아래의 내용이 불필요하다. */
+	* 객체를 외부로 노출하지 않을 경우 아래의 내용이 불필요하다.
+	* Hibernate5Module은 javax.persistence 기준이라 jakarta.persistence만 있으면 모든 JSON 직렬화가
+	* NoClassDefFoundError(javax/persistence/Transient)로 실패하므로 javax.persistence가 있을 때만 등록한다. */
 	@Bean
+	@ConditionalOnClass(name = "javax.persistence.Transient")
 	Hibernate5Module hibernate5Module() {
 		Hibernate5Module hibernate5Module = new Hibernate5Module();
 		//hibernate5Module.configure(Hibernate5Module.Feature.FORCE_LAZY_LOADING, true);
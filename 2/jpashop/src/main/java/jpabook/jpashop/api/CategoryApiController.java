@@ -0,0 +1,68 @@
+package jpabook.jpashop.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+    private final CategoryService categoryService;
+
+    /* 전체 카테고리 트리 - 메모리의 스냅샷을 반환한다. (CategoryTreeCache) */
+    @GetMapping("/api/categories")
+    public List<CategoryTree.Node> categories(){
+        return categoryService.getTree().getRoots();
+    }
+
+    @PostMapping("/api/categories")
+    public CreateCategoryResponse addCategory(@RequestBody @Valid CreateCategoryRequest request){
+        return new CreateCategoryResponse(categoryService.addCategory(request.getName(), request.getParentId()));
+    }
+
+    /* 카테고리와 모든 하위 카테고리의 상품 - 쿼리 한번 */
+    @GetMapping("/api/categories/{id}/items")
+    public List<CategoryItemDto> categoryItems(@PathVariable("id") Long id){
+        return categoryService.findItemsInSubtree(id).stream()
+                .map(CategoryItemDto::new)
+                .toList();
+    }
+
+    @Data
+    static class CreateCategoryRequest{
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse{
+        private Long id;
+    }
+
+    @Data
+    static class CategoryItemDto{
+        private Long itemId;
+        private String name;
+        private int price;
+
+        private CategoryItemDto(Item item){
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jpabook.jpashop.dto.ItemBulkUpdateDto;
+import jpabook.jpashop.dto.ItemListDto;
+import jpabook.jpashop.dto.ItemPatch;
+import jpabook.jpashop.dto.ItemSearchDto;
+import jpabook.jpashop.service.ItemBulkCsv;
+import jpabook.jpashop.service.ItemSearchIndex;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.StockService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+    private final StockService stockService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemService itemService;
+
+    /* 상품 목록 - DTO 페이지 조회
+    * ex) /api/items?page=0&size=20&sort=price,desc (정렬 : id, name, price, stockQuantity) */
+    @GetMapping("/api/items")
+    public ItemPageResponse items(@PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return new ItemPageResponse(itemService.findItemPage(pageable));
+    }
+
+    /* 상품 부분 수정 - 요청에 포함된 항목만 변경한다. ex) {"price": 12000} */
+    @PatchMapping("/api/v1/items/{id}")
+    public void patchItem(@PathVariable("id") Long id, @RequestBody @Valid ItemPatch patch){
+        itemService.patchItem(id, patch);
+    }
+
+    /* 가격 일괄 수정 ex) {"prices": {"1": 10000, "2": 12000}} */
+    @PostMapping("/api/v1/items/prices")
+    public ItemBulkUpdateDto bulkUpdatePrices(@RequestBody @Valid BulkPriceRequest request){
+        return ItemBulkUpdateDto.of(itemService.bulkUpdatePrices(request.getPrices()), 0);
+    }
+
+    /* CSV 일괄 수정 - 형식은 ItemBulkCsv 참고 */
+    @PostMapping(value = "/api/v1/items/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ItemBulkUpdateDto bulkUpdateCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            return itemService.bulkUpdate(ItemBulkCsv.parse(reader));
+        }
+    }
+
+    @Data
+    static class BulkPriceRequest{
+        @NotEmpty
+        private Map<@NotNull Long, @NotNull @PositiveOrZero Integer> prices;
+    }
+
+    /* Page를 그대로 반환하면 스프링 데이터 버전에 따라 JSON 형식이 바뀌므로 필요한 값만 반환한다. */
+    @Getter
+    static class ItemPageResponse{
+        private final List<ItemListDto> content;
+        private final int page;
+        private final int size;
+        private final long totalElements;
+        private final int totalPages;
+
+        private ItemPageResponse(Page<ItemListDto> page){
+            this.content = page.getContent();
+            this.page = page.getNumber();
+            this.size = page.getSize();
+            this.totalElements = page.getTotalElements();
+            this.totalPages = page.getTotalPages();
+        }
+    }
+
+    /* 상품 검색 - 메모리 색인에서 점수 순으로 조회한다. (DB 조회 없음)
+    * ex) /api/items/search?q=jpa 김영한&limit=20 */
+    @GetMapping("/api/items/search")
+    public List<ItemSearchDto> searchItems(
+            @RequestParam("q") String q
+            , @RequestParam(value = "limit", defaultValue = "20") int limit
+    ){
+        return itemSearchIndex.search(q, Math.min(Math.max(limit, 1), 100));
+    }
+
+    /* 인기 상품 재고 분할 - 이후 주문은 shard 중 하나에서 재고를 차감한다. */
+    @PostMapping("/api/v1/items/{id}/stock-shards")
+    public StockShardResponse enableStockSharding(
+            @PathVariable("id") Long id
+            , @RequestBody @Valid StockShardRequest request
+    ){
+        stockService.enableSharding(id, request.getShards());
+        return new StockShardResponse(id, request.getShards());
+    }
+
+    @Data
+    static class StockShardRequest{
+        @Min(2)
+        @Max(64)
+        private int shards;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class StockShardResponse{
+        private Long itemId;
+        private int shards;
+    }
+}
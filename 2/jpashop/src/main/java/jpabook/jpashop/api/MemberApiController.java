@@ -1,7 +1,15 @@
 package jpabook.jpashop.api;
 
+import jakarta.persistence.Tuple;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.dto.MemberImportDto;
+import jpabook.jpashop.repository.MemberField;
+import jpabook.jpashop.repository.SparseField;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -84,6 +92,42 @@ public class MemberApiController {
         return new Result(collect);
     }
 
+    /* 부분 조회 - ?fields=id,name 요청한 필드의 컬럼만 조회해서 그대로 응답한다. (MemberField) */
+    @GetMapping(value = "/api/v2/members", params = "fields")
+    public Result<List<Tuple>> membersV2Fields(@RequestParam("fields") String fields){
+        return new Result<>(memberService.findMembers(SparseField.parse(MemberField.class, fields)));
+    }
+
+    /* 대량 가입 - 이미 가입된 이름은 건너뛰고 결과에 포함한다. (MemberService.importMembers) */
+    @PostMapping("/api/v1/members/import")
+    public MemberImportDto importMembers(@RequestBody @Valid ImportMembersRequest request){
+        List<Member> members = request.getMembers().stream()
+                .map(m -> {
+                    Member member = new Member();
+                    member.setName(m.getName());
+                    member.setAddress(new Address(m.getCity(), m.getStreet(), m.getZipcode()));
+                    return member;
+                })
+                .toList();
+        return memberService.importMembers(members);
+    }
+
+    @Data
+    static class ImportMembersRequest{
+        @NotEmpty
+        @Size(max = 100000)
+        private List<@Valid ImportMember> members;
+    }
+
+    @Data
+    static class ImportMember{
+        @NotBlank
+        private String name;
+        private String city;
+        private String street;
+        private String zipcode;
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T>{
@@ -1,22 +1,52 @@
 package jpabook.jpashop.api;
 
+import jakarta.persistence.Tuple;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.dto.BulkOrderDto;
+import jpabook.jpashop.dto.OrderCommand;
+import jpabook.jpashop.dto.OrderTicketDto;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderExpand;
+import jpabook.jpashop.repository.OrderField;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.SparseField;
+import jpabook.jpashop.repository.ToOneBatchLoader;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIntakeService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderTicket;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,8 +55,15 @@ import static java.util.stream.Collectors.*;
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
+    /* 페이징 API의 최대 limit (spring.data.web.pageable.max-page-size 와 같다) */
+    private static final int MAX_LIMIT = 100;
+
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
+    private final OrderIntakeService orderIntakeService;
+    private final ToOneBatchLoader toOneBatchLoader;
 
     /**
      * V1. 엔티티 직접 노출
@@ -36,6 +73,7 @@ public class OrderApiController {
      *
      * V2. 엔티티를 조회해서 DTO로 변환(fetch join 사용X)
      * - 트랜잭션 안에서 지연 로딩 필요
+     * - 지연 로딩할 회원, 배송, 상품은 요청마다 모아서 타입별로 한번에 조회 (ToOneBatchLoader)
      * V3. 엔티티를 조회해서 DTO로 변환(fetch join 사용O)
      * - 페이징 시에는 N 부분을 포기해야함(대신에 batch fetch size? 옵션 주면 N -> 1 쿼리로 변경 가
      능)
@@ -45,7 +83,7 @@ public class OrderApiController {
      * V5. JPA에서 DTO로 바로 조회, 컬렉션 1 조회 최적화 버전 (1 + 1 Query)
      * - 페이징 가능
      * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
-     * - 페이징 불가능...
+     * - 페이징 불가능... -> 주문 아이디를 먼저 자르는 서브쿼리와 조인하면 주문 단위로 페이징 가능 (?offset=&limit=)
      *
      */
     /* 객체를 직접 노출하기 때문에 다른 방법을 사용해야한다. */
@@ -66,6 +104,24 @@ public class OrderApiController {
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersv2(){
         List<Order> orders = orderRepository.findAll(new OrderSearch());
+        return toOrderDtos(orders);
+    }
+
+    /* DTO 변환 전에 회원, 배송, 상품을 타입별로 한번에 조회한다. (ToOneBatchLoader)
+    * fetch join으로 이미 조회된 연관관계는 건너뛴다. */
+    private List<OrderDto> toOrderDtos(List<Order> orders){
+        for (Order order : orders) {
+            toOneBatchLoader.register(order.getMember());
+            toOneBatchLoader.register(order.getDelivery());
+        }
+        toOneBatchLoader.load();
+
+        /* 주문상품 컬렉션은 default_batch_fetch_size로 초기화된다. */
+        for (Order order : orders) {
+            order.getOrderItems().forEach(orderItem -> toOneBatchLoader.register(orderItem.getItem()));
+        }
+        toOneBatchLoader.load();
+
         return orders.stream()
                 .map(o -> new OrderDto(o))
                 .collect(toList());
@@ -79,6 +135,8 @@ public class OrderApiController {
         private LocalDateTime orderDate;
         private OrderStatus orderStatus;
         private Address address;
+        private int totalPrice;
+        private int itemCount;
         //해당 부분도 Dto로 변경해야한다.
         //private List<OrderItem> orderItems;
         private List<OrderItemDto> orderItems;
@@ -89,6 +147,8 @@ public class OrderApiController {
             orderDate = o.getOrderDate();
             orderStatus = o.getStatus();
             address = o.getDelivery().getAddress();
+            totalPrice = o.getTotalPrice();
+            itemCount = o.getItemCount();
 
             //orderItems = o.getOrderItems();
             /*
@@ -116,14 +176,17 @@ public class OrderApiController {
         }
     }
 
-    /* fetch join */
+    /* fetch join (엔티티 그래프)
+    * ?expand=member,delivery,items 로 같이 조회할 연관관계를 선택한다. 기본값은 OrderDto가 읽는 연관관계 전체(쿼리 한번)
+    * 선택하지 않은 연관관계는 DTO 변환 전에 타입별로 한번에 조회한다. (toOrderDtos) */
     @GetMapping("/api/v3/orders")
     public List<OrderDto> ordersv3(
             @RequestParam(value = "offset", defaultValue = "0") int offset
             , @RequestParam(value = "limit", defaultValue = "100") int limit
+            , @RequestParam(value = "expand", defaultValue = "member,delivery,items") String expand
             ){
         /* 1:N을 fetch join하면 페이징처리가 되지 않는다. */
-        /*List<Order> orders = orderRepository.findAllWithItem();*/
+        /*List<Order> orders = orderRepository.findAll(Order.GRAPH_FULL);*/
 
         /* 페이징 처리 방법
         - 페이징 + 컬렉션 엔티티 함께 조회
@@ -131,12 +194,69 @@ public class OrderApiController {
            ToOne 관계는 row수를 증가 시키지 않아, 페이징 쿼리에 영향을 주지 않는다.
            -> 컬렉션은 지연 로딩
            (hidernate.default_batch_fetch_size, @BetchSize)
+           -> 또는 주문 아이디를 서브쿼리에서 먼저 자르고 컬렉션까지 fetch (OrderRepository.findPage)
         */
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+        List<Order> orders = orderRepository.findAll(OrderExpand.parse(expand), offsetOf(offset), Math.max(limit, 1));
 
-        return orders.stream()
-                .map(OrderDto::new)
-                .collect(toList());
+        return toOrderDtos(orders);
+    }
+
+    /* 부분 조회 - ?fields=orderId,name,orderStatus 요청한 필드의 컬럼만 조회해서 그대로 응답한다. (OrderField)
+    * 엔티티, OrderDto를 만들지 않고, 주문상품(컬렉션)은 선택할 수 없다. 키셋 페이징(after)과는 함께 사용하지 않는다. */
+    @GetMapping(value = "/api/v3/orders", params = {"fields", "!after"})
+    public List<Tuple> ordersv3Fields(
+            @RequestParam("fields") String fields
+            , @RequestParam(value = "offset", defaultValue = "0") int offset
+            , @RequestParam(value = "limit", defaultValue = "100") int limit
+    ){
+        return orderRepository.findAll(SparseField.parse(OrderField.class, fields), offsetOf(offset), limitOf(limit));
+    }
+
+    /* fields와 after를 같이 보내면 키셋 페이징(ordersv3Cursor)이 호출되어 fields가 무시되므로 400으로 응답한다. */
+    @GetMapping(value = "/api/v3/orders", params = {"fields", "after"})
+    public List<Tuple> ordersv3FieldsCursor(){
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields는 키셋 페이징(after)과 함께 사용할 수 없습니다.");
+    }
+
+    /* fetch join + 키셋(seek) 페이징
+    * - ?after=&limit= 로 호출하면 첫 페이지, 응답의 nextCursor를 다음 요청의 after로 넘긴다.
+    * - after 파라미터가 없으면 위의 offset 방식(ordersv3)이 호출된다.
+    * - expand는 ordersv3와 같다. */
+    @GetMapping(value = "/api/v3/orders", params = "after")
+    public CursorResult<List<OrderDto>> ordersv3Cursor(
+            @RequestParam("after") String after
+            , @RequestParam(value = "limit", defaultValue = "100") int limit
+            , @RequestParam(value = "expand", defaultValue = "member,delivery,items") String expand
+    ){
+        OrderCursor cursor = StringUtils.hasText(after) ? OrderCursor.decode(after) : null;
+        int size = limitOf(limit);
+        List<Order> orders = orderRepository.findAll(OrderExpand.parse(expand), cursor, size);
+
+        List<OrderDto> collect = toOrderDtos(orders);
+
+        /* size 만큼 조회되지 않았다면 마지막 페이지 */
+        String nextCursor = orders.isEmpty() || orders.size() < size
+                ? null
+                : OrderCursor.from(orders.get(orders.size() - 1)).encode();
+
+        return new CursorResult<>(collect, nextCursor);
+    }
+
+    /* 페이지 크기는 /api/items/search 처럼 1 ~ MAX_LIMIT 로 맞춘다. (음수는 쿼리 오류, 너무 크면 페이징 의미가 없다)
+    * 기존 offset 방식(ordersv3)은 호환을 위해 최대값을 두지 않고 1 이상으로만 맞춘다. */
+    private static int limitOf(int limit){
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    private static int offsetOf(int offset){
+        return Math.max(offset, 0);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T>{
+        private T data;
+        private String nextCursor;
     }
 
     @GetMapping("/api/v4/orders")
@@ -144,8 +264,12 @@ public class OrderApiController {
         return orderQueryRepository.findOrderQueryDtos();
     }
 
+    /* parallel=true 이면 주문상품 in 쿼리를 청크로 나눠 동시에 실행한다. (jpashop.order.query.*) */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersv5(){
+    public List<OrderQueryDto> ordersv5(@RequestParam(value = "parallel", defaultValue = "false") boolean parallel){
+        if(parallel){
+            return orderQueryRepository.findAlBylDto_parallel();
+        }
         return orderQueryRepository.findAlBylDto_optimization();
     }
 
@@ -153,11 +277,75 @@ public class OrderApiController {
     public List<OrderQueryDto> ordersv6(){
         List<OrderFlatDto> flats = orderQueryRepository.findAlBylDto_flat();
 
+        /* groupingBy는 row마다 키 DTO를 만들고 HashMap이라 순서도 섞인다.
         return flats.stream()
                 .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
                         mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
                 )).entrySet().stream()
                 .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
                 .collect(toList());
+        */
+        /* order_id 순으로 정렬된 row를 한번 훑어서 조립한다. */
+        return OrderFlatAssembler.assemble(flats);
+    }
+
+    /* 플랫 조회 + 주문 단위 페이징 - limit 파라미터가 있으면 호출된다. */
+    @GetMapping(value = "/api/v6/orders", params = "limit")
+    public List<OrderQueryDto> ordersv6Page(
+            @RequestParam(value = "offset", defaultValue = "0") int offset
+            , @RequestParam("limit") int limit
+    ){
+        return OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat(offsetOf(offset), limitOf(limit)));
+    }
+
+    /* 전체 주문 export - NDJSON(한 줄에 주문 하나)
+    * v1 ~ v6는 전체 결과를 List로 만든 뒤 직렬화 하지만,
+    * export는 DB 커서에서 읽은 주문을 바로 응답에 쓰기 때문에 주문 수와 상관없이 힙 사용량이 일정하다. */
+    @GetMapping(value = "/api/orders/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        orderExportService.exportOrders(response.getOutputStream());
+    }
+
+    /* 대량 주문 - 요청 순서대로 커밋된 주문 아이디와 실패한 청크의 범위를 반환한다. (OrderService.placeOrders)
+    * 일부 청크만 커밋된 경우에도 200 으로 응답하므로 failedChunk를 확인해야 한다. */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderDto bulkOrders(@RequestBody @Valid BulkOrderRequest request){
+        return orderService.placeOrders(request.getOrders());
+    }
+
+    @Data
+    static class BulkOrderRequest{
+        @NotEmpty
+        @Size(max = 1000)
+        private List<@Valid OrderCommand> orders;
+    }
+
+    /* 비동기 주문 - 주문을 접수 큐에 넣고 접수표를 바로 반환한다. (202 Accepted, 큐가 가득 차면 429)
+    * 결과는 Location의 접수표 조회 API로 확인한다. */
+    @PostMapping("/api/v1/orders/async")
+    public ResponseEntity<OrderTicketDto> orderAsync(@RequestBody @Valid AsyncOrderRequest request){
+        OrderTicket ticket = orderIntakeService.submit(request.getMemberId(), request.getItemId(), request.getCount());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/orders/async/" + ticket.getId()))
+                .body(OrderTicketDto.from(ticket));
+    }
+
+    @GetMapping("/api/v1/orders/async/{ticketId}")
+    public OrderTicketDto orderTicket(@PathVariable("ticketId") String ticketId){
+        return orderIntakeService.findTicket(ticketId)
+                .map(OrderTicketDto::from)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "접수표가 없습니다. ticketId=" + ticketId));
+    }
+
+    @Data
+    static class AsyncOrderRequest{
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
     }
 }
@@ -3,6 +3,7 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.ToOneBatchLoader;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
 import jpabook.jpashop.repository.order.simplequery.SimpleOrderDto;
 import lombok.RequiredArgsConstructor;
@@ -22,8 +23,9 @@ import static java.util.stream.Collectors.toList;
 public class OrderSimpleApiController {
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final ToOneBatchLoader toOneBatchLoader;
 
-    /* ordersV1 / ordersV2 - N+1의 문제가 발생한다. */
+    /* ordersV1 - N+1의 문제가 발생한다. (ordersV2는 ToOneBatchLoader로 타입별 한번에 조회) */
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
         List<Order> all = orderRepository.findAll(new OrderSearch());
@@ -39,9 +41,15 @@ public class OrderSimpleApiController {
         return all;
     }
 
+    /* DTO 변환 전에 회원, 배송을 타입별로 한번에 조회한다. (ToOneBatchLoader) */
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> ordersV2() {
         List<Order> orders = orderRepository.findAll(new OrderSearch());
+        for(Order order : orders){
+            toOneBatchLoader.register(order.getMember());
+            toOneBatchLoader.register(order.getDelivery());
+        }
+        toOneBatchLoader.load();
 
         return orders.stream()
                 //.map(order -> new SimpleOrderDto(order))
@@ -52,7 +60,7 @@ public class OrderSimpleApiController {
 
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
+        List<Order> orders = orderRepository.findAll(Order.GRAPH_SUMMARY);
         return orders.stream()
                 .map(order -> new SimpleOrderDto(order))
                 .collect(toList());
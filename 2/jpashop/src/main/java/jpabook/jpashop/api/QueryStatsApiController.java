@@ -0,0 +1,38 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitor.QueryStats;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/* 엔드포인트 / 서비스 메서드 별 SQL 통계
+* 기본적으로 기준치(jpashop.query-count.*-threshold)를 넘긴 적이 있는 항목만 보여준다. */
+@RestController
+@RequiredArgsConstructor
+public class QueryStatsApiController {
+    private final QueryStats queryStats;
+
+    @GetMapping("/api/admin/query-stats")
+    public Result<List<QueryStats.QueryStat>> queryStats(
+            @RequestParam(value = "all", defaultValue = "false") boolean all
+    ){
+        return new Result<>(queryStats.snapshot(!all));
+    }
+
+    @DeleteMapping("/api/admin/query-stats")
+    public void resetQueryStats(){
+        queryStats.reset();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T>{
+        private T data;
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.dto.SalesBackfillDto;
+import jpabook.jpashop.dto.SalesReportDto;
+import jpabook.jpashop.repository.SalesReportGroup;
+import jpabook.jpashop.service.SalesReportService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/* 매출 조회 - 상품별 일 매출 집계(DailyItemSales)만 읽고 주문 테이블은 읽지 않는다.
+* /api/reports/sales?from=2025-01-01&to=2025-01-31&groupBy=DAY&status=ORDER */
+@RestController
+@RequiredArgsConstructor
+public class SalesReportApiController {
+    private final SalesReportService salesReportService;
+
+    @GetMapping("/api/reports/sales")
+    public Result<List<SalesReportDto>> sales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from
+            , @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+            , @RequestParam(value = "itemId", required = false) Long itemId
+            , @RequestParam(value = "status", required = false) OrderStatus status
+            , @RequestParam(value = "groupBy", defaultValue = "DAY_ITEM") SalesReportGroup groupBy
+    ){
+        return new Result<>(salesReportService.findSales(from, to, itemId, status, groupBy));
+    }
+
+    /* 집계 재생성 - 기간이 없으면 전체 */
+    @PostMapping("/api/reports/sales/rebuild")
+    public SalesBackfillDto rebuild(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from
+            , @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ){
+        return salesReportService.rebuild(from, to);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T>{
+        private T data;
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/* 부분 조회(?fields=) 결과 Tuple을 {별칭: 값} 객체로 직렬화한다.
+* Map이나 DTO로 옮기지 않고 Tuple의 값을 바로 쓴다. (SparseField) */
+@JsonComponent
+public class TupleSerializer extends JsonSerializer<Tuple> {
+    @Override
+    public void serialize(Tuple tuple, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (TupleElement<?> element : tuple.getElements()) {
+            provider.defaultSerializeField(element.getAlias(), tuple.get(element), gen);
+        }
+        gen.writeEndObject();
+    }
+}
@@ -8,6 +8,9 @@ import lombok.Setter;
 @Setter
 public class BookForm {
     private Long id;
+    /* 폼을 열 때의 버전, 재고 수량 - 그 사이 주문으로 줄어든 재고를 덮어쓰지 않도록 수정할 때 비교한다. (ItemService.updateItem) */
+    private Long version;
+    private int loadedStockQuantity;
 
     private String name;
     private int price;
@@ -2,17 +2,21 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.ItemListDto;
 import jpabook.jpashop.service.ItemService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 
-import java.util.List;
-
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
@@ -38,11 +42,14 @@ public class ItemController {
         return "redirect:/items";
     }
 
+    /* 상품 목록 - 전체 엔티티 대신 한 페이지의 DTO만 조회한다.
+    * ex) /items?page=0&size=20&sort=name,asc */
     @GetMapping("/items")
-    public String list(Model model){
-        List<Item> items = itemService.findItems();
+    public String list(@PageableDefault(size = 20, sort = "id") Pageable pageable, Model model){
+        Page<ItemListDto> page = itemService.findItemPage(pageable);
 
-        model.addAttribute("items", items);
+        model.addAttribute("items", page.getContent());
+        model.addAttribute("page", page);
         return "items/itemList";
     }
 
@@ -57,14 +64,16 @@ public class ItemController {
         form.setStockQuantity(item.getStockQuantity());
         form.setAuthor(item.getAuthor());
         form.setIsbn(item.getIsbn());
+        form.setVersion(item.getVersion());
+        form.setLoadedStockQuantity(item.getStockQuantity());
 
         model.addAttribute("form", form);
 
-        return "items/updateitemForm";
+        return "items/updateItemForm";
     }
 
     @PostMapping("items/{itemId}/edit")
-    public String updateItem(@ModelAttribute("form") BookForm form){
+    public String updateItem(@ModelAttribute("form") BookForm form, BindingResult result){
         Book book = new Book();
 
         /* {itemId} - 해당 부분 조작할 가능성이 있기 때문에 권한 체크 등의
@@ -76,8 +85,21 @@ public class ItemController {
         book.setStockQuantity(form.getStockQuantity());
         book.setAuthor(form.getAuthor());
         book.setIsbn(form.getIsbn());
-
-        itemService.saveItem(book);
+        book.setVersion(form.getVersion());
+
+        /* 병합(saveItem -> merge) 대신 변경 감지를 사용한다.
+        * 병합하면 폼의 재고 수량으로 그 사이 주문으로 줄어든 재고를 덮어쓴다. */
+        try {
+            itemService.updateItem(form.getId(), book, form.getLoadedStockQuantity());
+        } catch (OptimisticLockingFailureException e) {
+            /* 폼을 연 뒤에 재고가 바뀌었다 - 현재 재고를 보여주고 다시 수정하게 한다. */
+            Item item = itemService.findOne(form.getId());
+            form.setStockQuantity(item.getStockQuantity());
+            form.setVersion(item.getVersion());
+            form.setLoadedStockQuantity(item.getStockQuantity());
+            result.reject("stockChanged", "수정하는 동안 재고가 변경되었습니다. 현재 재고를 확인하고 다시 저장하세요.");
+            return "items/updateItemForm";
+        }
 
         return "redirect:/items";
     }
@@ -2,15 +2,21 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.ItemListDto;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntakeService;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderTicket;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -20,11 +26,16 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderIntakeService orderIntakeService;
+
+    /* true 이면 주문 화면도 비동기 접수를 사용한다. (OrderIntakeService) */
+    @Value("${jpashop.order.intake.web-async:false}")
+    private boolean asyncOrder;
 
     @GetMapping("/order")
     public String createForm(Model model){
         List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<ItemListDto> items = itemService.findItemOptions();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -36,16 +47,34 @@ public class OrderController {
     public String order(@RequestParam("memberId") Long memberId
                     , @RequestParam("itemId") Long itemId
                     , @RequestParam("count") int count){
+        if(asyncOrder){
+            OrderTicket ticket = orderIntakeService.submit(memberId, itemId, count);
+            return "redirect:/orders/tickets/" + ticket.getId();
+        }
         orderService.order(memberId, itemId, count);
         return "redirect:/orders";
     }
 
+    /* 비동기 주문 접수표 - 처리중이면 화면이 주기적으로 새로고침 된다. */
+    @GetMapping("/orders/tickets/{ticketId}")
+    public String orderTicket(@PathVariable("ticketId") String ticketId, Model model){
+        OrderTicket ticket = orderIntakeService.findTicket(ticketId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "접수표가 없습니다."));
+        model.addAttribute("ticket", ticket);
+        return "order/orderTicket";
+    }
+
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch
                             , Model model){
         List<Order> orders = orderService.findOrders(orderSearch);
         model.addAttribute("orders", orders);
 
+        /* 조회 건수가 limit 만큼이면 다음 페이지가 있을 수 있다. */
+        if(!orders.isEmpty() && orders.size() == orderSearch.limitOrDefault()){
+            model.addAttribute("nextCursor", OrderCursor.from(orders.get(orders.size() - 1)).encode());
+        }
+
         return "order/orderList";
     }
 
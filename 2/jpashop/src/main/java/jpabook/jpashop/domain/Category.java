@@ -3,6 +3,8 @@ package jpabook.jpashop.domain;
 import jakarta.persistence.*;
 import jpabook.jpashop.domain.item.Item;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,13 +16,27 @@ import java.util.Objects;
 @ToString(callSuper = true, exclude = "child")
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 @AllArgsConstructor(staticName = "of")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Category.CACHE_REGION)//2차 캐시 - 카테고리는 거의 변경되지 않는다.
+@Table(indexes = @Index(columnList = "path"))
 public class Category extends AuditingFields{
+    public static final String ROOT_PATH = "/";
+    /* 2차 캐시 영역 이름 (caffeine.conf) */
+    public static final String CACHE_REGION = "category";
+    public static final String CHILD_CACHE_REGION = "category-child";
+
     @Id @GeneratedValue
     @Column(name = "category_id")
     private Long id;
 
     private String name;
 
+    /* 조상 경로(materialized path) - 루트부터 상위 카테고리까지의 아이디 ex) 루트 "/", 1의 자식 "/1/", 손자 "/1/5/"
+    * 하위 카테고리 전체를 레벨마다 조회하지 않고 "path like '/1/%'" 인덱스 range scan 한번으로 조회한다. (CategoryRepository)
+    * 자신의 아이디는 포함하지 않으므로 상위 카테고리만 저장되어 있으면 경로를 만들 수 있다. */
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private String path = ROOT_PATH;
+
     @ManyToMany
     @JoinTable(name = "category_item"
             , joinColumns = @JoinColumn(name = "category_id")
@@ -35,6 +51,8 @@ public class Category extends AuditingFields{
     @JoinColumn(name = "parent_id")
     private Category parent;//뎁스를 나누기 위해
 
+    /* 컬렉션 캐시 - 자식 카테고리의 아이디 목록만 저장하고, 자식 엔티티는 Category 영역에서 가져온다. */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Category.CHILD_CACHE_REGION)
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
@@ -42,6 +60,30 @@ public class Category extends AuditingFields{
     public void addChildCategory(Category child){
         this.child.add(child);
         child.setParent(this);
+        if(id != null){
+            child.path = getSubtreePath();
+        }
+    }
+
+    /* 하위 카테고리의 경로 접두어 - 하위 카테고리들의 path는 모두 이 값으로 시작한다. */
+    public String getSubtreePath(){
+        if(id == null){
+            throw new IllegalStateException("저장되지 않은 카테고리입니다.");
+        }
+        return path + id + "/";
+    }
+
+    /* 상위 카테고리가 저장되기 전에 연결된 경우 저장 시점에 경로를 다시 만든다.
+    * 이미 저장된 카테고리의 상위를 바꾸는 기능은 없다. (하위 카테고리 경로를 모두 바꿔야 한다.) */
+    @PrePersist
+    void assignPath(){
+        if(parent == null){
+            path = ROOT_PATH;
+        }else if(parent.getId() != null){
+            path = parent.getSubtreePath();
+        }else{
+            throw new IllegalStateException("상위 카테고리를 먼저 저장해야 합니다.");
+        }
     }
 
     @Override
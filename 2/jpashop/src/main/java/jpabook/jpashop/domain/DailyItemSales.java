@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/* 상품별 일 매출 집계 - (주문일, 상품, 주문상태) 별 판매 수량과 금액
+* 매출 조회(/api/reports/sales)는 ordes, order_item을 읽지 않고 이 테이블만 읽는다.
+* - 주문/취소가 커밋될 때 같은 트랜잭션에서 증감한다. (DailyItemSalesAggregator)
+* - 전체를 다시 만들 때는 원본 주문에서 일 단위로 다시 집계한다. (SalesReportService.rebuild)
+* 원본과 독립적으로 다시 만들 수 있도록 상품과의 외래키는 두지 않는다. */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailyItemSales {
+    @EmbeddedId
+    private Key id;
+
+    private long quantity;//판매 수량
+    private long revenue;//판매 금액 (주문가격 * 수량)
+
+    @Embeddable
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    @AllArgsConstructor(staticName = "of")
+    public static class Key implements Serializable {
+        private LocalDate salesDate;//주문일
+        private Long itemId;
+        @Enumerated(EnumType.STRING)
+        private OrderStatus status;//주문상태 - 취소된 주문은 CANCEL로 옮겨진다.
+    }
+}
@@ -16,6 +16,9 @@ public class Delivery extends  AuditingFields{
     @Column(name = "delivery_id", nullable = false)
     private Long id;
 
+    @Version
+    private Long version;
+
     @OneToOne(mappedBy = "delivery", fetch = FetchType.LAZY)
     @JsonIgnore
     private Order order;
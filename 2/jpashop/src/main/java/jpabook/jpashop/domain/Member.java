@@ -3,6 +3,8 @@ package jpabook.jpashop.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.ArrayList;
@@ -14,12 +16,17 @@ import java.util.Objects;
 @ToString(callSuper = true, exclude = "orders")
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 @AllArgsConstructor(staticName = "of")
-@Table(indexes = {
-        @Index(columnList = "name"),
+/* 이름 중복은 유니크 제약조건으로 막는다. (MemberService.join - 동시에 가입해도 한명만 성공) */
+@Table(uniqueConstraints = @UniqueConstraint(name = Member.NAME_UNIQUE_CONSTRAINT, columnNames = "name")
+        , indexes = {
         @Index(columnList = "createdAt"),
         @Index(columnList = "createdBy")
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Member.CACHE_REGION)//2차 캐시 - 주문마다 조회되지만 변경은 드물다.
 public class Member extends AuditingFields{
+    public static final String NAME_UNIQUE_CONSTRAINT = "uk_member_name";
+    public static final String CACHE_REGION = "member";//2차 캐시 영역 이름 (caffeine.conf)
+
     @Id @GeneratedValue
     @Column(name = "member_id", nullable = false, updatable = false)
     private Long id;
@@ -14,13 +14,42 @@ import java.util.Objects;
 @ToString(callSuper = true, exclude = "orderItems")
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 @AllArgsConstructor(staticName = "of")
-@Table(name="ordes")
+@Table(name="ordes", indexes = {
+        /* 키셋 페이징(OrderRepository.findAll(Set<OrderExpand>, OrderCursor, int))에서 사용 */
+        @Index(columnList = "orderDate, order_id")
+})
+/* 조회 화면마다 같이 가져올(fetch) 연관관계 - OrderRepository.findAll(graphName)
+* summary   : 회원, 배송 (SimpleOrderDto)
+* withItems : 주문상품, 상품
+* full      : 회원, 배송, 주문상품, 상품 (OrderApiController.OrderDto) */
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Order.GRAPH_SUMMARY, attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery")
+        }),
+        @NamedEntityGraph(name = Order.GRAPH_WITH_ITEMS, attributeNodes = {
+                @NamedAttributeNode(value = "orderItems", subgraph = "orderItems.item")
+        }, subgraphs = @NamedSubgraph(name = "orderItems.item", attributeNodes = @NamedAttributeNode("item"))),
+        @NamedEntityGraph(name = Order.GRAPH_FULL, attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "orderItems.item")
+        }, subgraphs = @NamedSubgraph(name = "orderItems.item", attributeNodes = @NamedAttributeNode("item")))
+})
 public class Order extends AuditingFields{
+    public static final String GRAPH_SUMMARY = "Order.summary";
+    public static final String GRAPH_WITH_ITEMS = "Order.withItems";
+    public static final String GRAPH_FULL = "Order.full";
+
     @Id
     @GeneratedValue
     @Column(name = "order_id", nullable = false)
     private Long id;
 
+    /* 낙관적 락 - 동시에 같은 주문을 변경(취소)하면 나중에 커밋하는 쪽이 실패한다. (@RetryOnOptimisticLock) */
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id")
     private Member member;/* 연관관계의 주인으로 기준점 */
@@ -106,6 +135,17 @@ Java에서는 `java.lang.reflect.Proxy`를 사용하여 동적 프록시(Dynamic
 
     private LocalDateTime orderDate;
 
+    /* 주문 금액, 주문상품 수 - 주문상품을 추가할 때 같이 계산해서 저장한다.
+    * 목록/정렬/매출 집계에서 order_item을 조인하거나 orderItems 컬렉션을 로딩하지 않고 컬럼 하나로 읽는다.
+    * 기존 데이터베이스(ddl-auto: none)는 배포 전에 db/order-total-price.sql 로 컬럼을 추가하고 기존 주문을 채운다. */
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private int totalPrice;
+
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private int itemCount;
+
     /* === 연관관계 메서드 === */
     public void setMember(Member member){
         this.member = member;
@@ -115,6 +155,8 @@ Java에서는 `java.lang.reflect.Proxy`를 사용하여 동적 프록시(Dynamic
     public void addOrderItem(OrderItem orderItem){
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice = Math.addExact(totalPrice, orderItem.getTotalPrice());
+        itemCount++;
     }
 
     public void setDelivery(Delivery delivery){
@@ -151,30 +193,15 @@ Java에서는 `java.lang.reflect.Proxy`를 사용하여 동적 프록시(Dynamic
     /* 비즈니스 로직 */
         /* 주문 취소 */
     public void cancel(){
+        if(status == OrderStatus.CANCEL){
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
         if(delivery.getStatus() == DeliveryStatus.COMP){
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
-        /* 상태를 주문 취소로 변경 */
+        /* 상태를 주문 취소로 변경
+        * 제고 수량 복구는 OrderService에서 조건부 update로 처리한다. (ItemRepository.increaseStock)
+        * 주문 금액(totalPrice)은 주문 내역이므로 그대로 두고, 매출 집계는 상태(ORDER)로 취소된 주문을 제외한다. */
         this.setStatus(OrderStatus.CANCEL);
-
-        /* 제고 수량 복구 */
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
-    }
-
-    /* 조회 로직 */
-    /**
-     * 전체 주문 가격 조회
-     */
-    public int getTotalPrice(){
-        return orderItems.stream().mapToInt(OrderItem::getTotalPrice).sum();
-        /*
-        int totalPrice = 0;
-        for (OrderItem orderItem : orderItems){
-            totalPrice+= orderItem.getTotalPrice();
-        }
-        return totalPrice;
-        */
     }
 }
@@ -46,23 +46,23 @@ public class OrderItem extends AuditingFields{
 
     /* 생성 메서드 */
     public static OrderItem createOrderItem(Item item, int orderPrice, int count){
+        item.removeStock(count);
+
+        return createReservedOrderItem(item, orderPrice, count);
+    }
+
+    /* 재고를 이미 차감한 경우 (ItemRepository.decreaseStock)
+    * 엔티티의 재고를 변경하지 않으므로 dirty checking으로 재고가 덮어써지지 않는다. */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count){
         OrderItem orderItem = new OrderItem();
 
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
 
-        item.removeStock(count);
-
         return orderItem;
     }
 
-    /* 비즈니스 로직 */
-    public void cancel() {
-        //주문 취소 수량 만큼 제고를 늘려준다.
-        getItem().addStock(count);
-    }
-
     /* 조회 로직 */
         /* 주문상품 전체 가격 조회 */
     public int getTotalPrice() {
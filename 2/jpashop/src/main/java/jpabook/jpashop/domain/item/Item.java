@@ -5,6 +5,9 @@ import jpabook.jpashop.domain.AuditingFields;
 import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,22 +18,43 @@ import java.util.Objects;
 /* 상속관계전략 */
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
-@ToString(callSuper = true, exclude = "categories")
+@ToString(callSuper = true, exclude = {"categories", "stockShards"})
 /* callSuper = true 상속받은 클래스의 정보까지 출력
 * exclude 제외할 필드를 지정 */
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+/* 2차 캐시 - 상속관계는 최상위 엔티티에만 지정하고 Book, Album, Movie가 같은 영역을 사용한다.
+* 엔티티로 변경(addStock, removeStock, 수정)하면 READ_WRITE 전략이 커밋 시점에 캐시를 갱신하고,
+* 재고 조건부 update는 ItemRepository에서 해당 상품만 캐시에서 제거한다. */
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Item.CACHE_REGION)
+/* 변경된 컬럼만 update 한다. (하위 엔티티 Book, Album, Movie에도 적용)
+* 가격만 바꿔도 모든 컬럼을 update 하던 것을 줄이고, 다른 트랜잭션이 바꾼 컬럼을 이전 값으로 덮어쓰지 않는다. */
+@DynamicUpdate
 public abstract class Item extends AuditingFields {
+    /* 2차 캐시 영역 이름 (caffeine.conf) - Caffeine은 점(.)이 들어간 영역 이름의 설정을 찾지 못한다. */
+    public static final String CACHE_REGION = "item";
+
     @Id
     @GeneratedValue
     @Column(name = "item_id", nullable = false)
     private Long id;
 
+    /* 낙관적 락 - 재고 조건부 update(ItemRepository.decreaseStock)도 버전을 올린다.
+    * 수정 폼은 연 시점의 버전을 가지고 있어서, 그 사이 주문이 들어왔는데 재고를 바꾸면 수정이 실패한다. (ItemService.updateItem) */
+    @Version
+    private Long version;
+
     private String name;
 
     private int price;
 
     private int stockQuantity;
 
+    /* 재고 분할 여부 - true 이면 재고는 stockShards에 나눠서 저장되고 stockQuantity는 사용하지 않는다. (StockService.enableSharding) */
+    private boolean shardedStock;
+
+    @OneToMany(mappedBy = "item")
+    private List<ItemStockShard> stockShards = new ArrayList<>();
+
     /* @OneToMany(fetch = FetchType.LAZY) -> @XXXToMany - 속성이 지연로딩이다.
     *  @ManyToOne(fetch = FetchType.EAGER) -> @XXXToOne - 속성이 즉시로딩이다.
     *  => 즉시로딩 부분을 지연로딩으로 변경해줘야한다. */
@@ -49,11 +73,20 @@ public abstract class Item extends AuditingFields {
         return Objects.hashCode(id);
     }
 
+    /* 재고 수량 - 분할된 상품은 shard 재고의 합 */
+    public int getStockQuantity(){
+        if(!shardedStock){
+            return stockQuantity;
+        }
+        return stockShards.stream().mapToInt(ItemStockShard::getQuantity).sum();
+    }
+
     /* 비즈니스 로직 */
     /**
     * 제고 수량 증가
     */
     public void addStock(int quantity){
+        checkNotSharded();
         this.stockQuantity += quantity;
     }
 
@@ -61,10 +94,18 @@ public abstract class Item extends AuditingFields {
      * 제고 수량 감소
      */
     public void removeStock(int quantity) {
-        int restStock = this.stockQuantity -= quantity;
+        checkNotSharded();
+        /* 재고 확인 후에 변경한다. (예외가 발생해도 재고가 바뀌지 않도록) */
+        int restStock = this.stockQuantity - quantity;
         if(restStock < 0){
             throw new NotEnoughStockException("need more stock");
         }
         this.stockQuantity = restStock;
     }
+
+    private void checkNotSharded(){
+        if(shardedStock){
+            throw new IllegalStateException("재고가 분할된 상품은 StockService로 재고를 변경해야 합니다. id=" + id);
+        }
+    }
 }
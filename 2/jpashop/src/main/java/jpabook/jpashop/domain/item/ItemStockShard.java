@@ -0,0 +1,60 @@
+package jpabook.jpashop.domain.item;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Objects;
+
+/* 인기 상품 재고 분할 - 상품 하나의 재고를 shardCount 개의 row로 나눠서 저장한다.
+* 주문이 한 row에 몰리지 않도록 StockService가 임의의 shard에서 차감한다. */
+@Entity
+@Getter
+@ToString(exclude = "item")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"item_id", "shardNo"})
+})
+public class ItemStockShard {
+    @Id
+    @GeneratedValue
+    @Column(name = "item_stock_shard_id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    private int shardNo;
+
+    private int quantity;
+
+    /* 생성 메서드 */
+    public static ItemStockShard create(Item item, int shardNo, int quantity){
+        ItemStockShard shard = new ItemStockShard();
+        shard.item = item;
+        shard.shardNo = shardNo;
+        shard.quantity = quantity;
+        item.getStockShards().add(shard);
+        return shard;
+    }
+
+    /* 비즈니스 로직 */
+    /* 최대 quantity 만큼 차감하고 실제 차감한 수량을 반환한다. - 잠금을 잡은 상태에서만 사용 (StockService) */
+    public int take(int quantity){
+        int taken = Math.min(this.quantity, quantity);
+        this.quantity -= taken;
+        return taken;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ItemStockShard that = (ItemStockShard) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+}
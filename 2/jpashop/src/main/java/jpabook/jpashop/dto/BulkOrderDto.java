@@ -0,0 +1,26 @@
+package jpabook.jpashop.dto;
+
+import java.util.List;
+
+/* 대량 주문 결과 - 커밋된 청크의 주문 아이디(요청 순서), 실패한 청크 (없으면 null)
+* 청크가 실패하면 그 뒤의 주문은 처리하지 않는다. 요청의 failedChunk.from 번째 주문부터 다시 요청하면 된다. */
+public record BulkOrderDto(
+        List<Long> orderIds
+        , FailedChunk failedChunk
+) {
+    public static BulkOrderDto completed(List<Long> orderIds) {
+        return new BulkOrderDto(orderIds, null);
+    }
+
+    public static BulkOrderDto failed(List<Long> orderIds, int from, int to, String reason) {
+        return new BulkOrderDto(orderIds, new FailedChunk(from, to, reason));
+    }
+
+    /* 요청 목록에서 롤백된 청크의 범위 [from, to) 와 실패 사유 */
+    public record FailedChunk(
+            int from
+            , int to
+            , String reason
+    ) {
+    }
+}
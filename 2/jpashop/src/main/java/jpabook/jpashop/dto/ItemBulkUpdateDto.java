@@ -0,0 +1,11 @@
+package jpabook.jpashop.dto;
+
+/* 상품 일괄 수정 결과 - 수정된 상품 수 */
+public record ItemBulkUpdateDto(
+        int prices
+        , int stocks
+) {
+    public static ItemBulkUpdateDto of(int prices, int stocks) {
+        return new ItemBulkUpdateDto(prices, stocks);
+    }
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.dto;
+
+/* 상품 목록 화면/API 전용 - 화면에 표시하는 컬럼만 조회한다. (ItemRepository.findPage) */
+public record ItemListDto(
+        Long id
+        , String name
+        , int price
+        , int stockQuantity
+) {
+    public static ItemListDto of(Long id, String name, int price, int stockQuantity) {
+        return new ItemListDto(id, name, price, stockQuantity);
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/* 상품 부분 수정 - null인 값은 변경하지 않는다. (ItemService.patchItem)
+* author, isbn은 도서, artist는 음반, director, actor는 영화에만 사용한다. */
+public record ItemPatch(
+        @Size(min = 1) String name
+        , @PositiveOrZero Integer price
+        , @PositiveOrZero Integer stockQuantity
+        , String author
+        , String isbn
+        , String artist
+        , String director
+        , String actor
+) {
+    public static ItemPatch of(String name, Integer price, Integer stockQuantity, String author, String isbn, String artist, String director, String actor) {
+        return new ItemPatch(name, price, stockQuantity, author, isbn, artist, director, actor);
+    }
+
+    public static ItemPatch ofPrice(int price) {
+        return new ItemPatch(null, price, null, null, null, null, null, null);
+    }
+}
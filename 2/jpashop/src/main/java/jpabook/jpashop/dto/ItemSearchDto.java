@@ -0,0 +1,13 @@
+package jpabook.jpashop.dto;
+
+public record ItemSearchDto(
+        Long itemId
+        , String type
+        , String name
+        , int price
+        , int score
+) {
+    public static ItemSearchDto of(Long itemId, String type, String name, int price, int score) {
+        return new ItemSearchDto(itemId, type, name, price, score);
+    }
+}
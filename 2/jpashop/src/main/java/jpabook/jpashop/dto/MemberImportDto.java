@@ -0,0 +1,13 @@
+package jpabook.jpashop.dto;
+
+import java.util.List;
+
+/* 대량 가입 결과 - 가입된 회원 수, 이미 가입되었거나 목록 안에서 중복되어 건너뛴 이름 */
+public record MemberImportDto(
+        int imported
+        , List<String> duplicates
+) {
+    public static MemberImportDto of(int imported, List<String> duplicates) {
+        return new MemberImportDto(imported, duplicates);
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.List;
+
+/* 주문 요청 하나 - 회원 한명의 주문상품 여러건 (OrderService.placeOrders) */
+public record OrderCommand(
+        @NotNull Long memberId
+        , @NotEmpty @Valid List<Line> lines
+) {
+    public static OrderCommand of(Long memberId, List<Line> lines) {
+        return new OrderCommand(memberId, lines);
+    }
+
+    public static OrderCommand of(Long memberId, Long itemId, int count) {
+        return new OrderCommand(memberId, List.of(new Line(itemId, count)));
+    }
+
+    public record Line(
+            @NotNull Long itemId
+            , @Positive int count
+    ) {
+    }
+}
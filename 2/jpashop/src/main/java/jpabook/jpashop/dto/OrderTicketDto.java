@@ -0,0 +1,27 @@
+package jpabook.jpashop.dto;
+
+import jpabook.jpashop.service.OrderTicket;
+
+import java.time.LocalDateTime;
+
+public record OrderTicketDto(
+        String ticketId
+        , OrderTicket.Status status
+        , Long orderId
+        , String message
+        , LocalDateTime createdAt
+        , LocalDateTime completedAt
+) {
+    public static OrderTicketDto from(OrderTicket ticket) {
+        /* status를 먼저 읽는다 - 완료 상태이면 orderId, message도 채워져 있다. */
+        OrderTicket.Status status = ticket.getStatus();
+        return new OrderTicketDto(
+                ticket.getId()
+                , status
+                , ticket.getOrderId()
+                , ticket.getMessage()
+                , ticket.getCreatedAt()
+                , ticket.getCompletedAt()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.dto;
+
+import java.time.LocalDate;
+
+/* 매출 집계 재생성 결과 - 다시 집계한 기간, 일 수, 만들어진 집계 row 수 */
+public record SalesBackfillDto(
+        LocalDate from
+        , LocalDate to
+        , int days
+        , long rows
+        , long elapsedMillis
+) {
+    public static SalesBackfillDto of(LocalDate from, LocalDate to, int days, long rows, long elapsedMillis) {
+        return new SalesBackfillDto(from, to, days, rows, elapsedMillis);
+    }
+}
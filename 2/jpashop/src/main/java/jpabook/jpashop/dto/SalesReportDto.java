@@ -0,0 +1,18 @@
+package jpabook.jpashop.dto;
+
+import jpabook.jpashop.domain.OrderStatus;
+
+import java.time.LocalDate;
+
+/* 매출 조회 결과 한 줄 - 묶는 기준(SalesReportGroup)에 없는 항목(일자 또는 상품)은 null */
+public record SalesReportDto(
+        LocalDate salesDate
+        , Long itemId
+        , OrderStatus status
+        , long quantity
+        , long revenue
+) {
+    public static SalesReportDto of(LocalDate salesDate, Long itemId, OrderStatus status, long quantity, long revenue) {
+        return new SalesReportDto(salesDate, itemId, status, quantity, revenue);
+    }
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/* 하나의 범위(HTTP 요청, 서비스 메서드, 테스트)에서 실행된 SQL 통계
+* 한 스레드 안에서만 사용되므로 동기화하지 않는다. (QueryCounter 참고) */
+@Getter
+public class QueryCount {
+    private final QueryCount parent;
+
+    private long statements;//실행된 SQL 수
+    private long rows;//읽은 row 수
+    private long elapsedNanos;//SQL 실행 시간 합계
+
+    QueryCount(QueryCount parent) {
+        this.parent = parent;
+    }
+
+    void addStatement(long elapsedNanos) {
+        this.statements++;
+        this.elapsedNanos += elapsedNanos;
+    }
+
+    void addRow() {
+        this.rows++;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statements + ", rows=" + rows + ", time=" + getElapsedMillis() + "ms";
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/* 서비스 메서드 단위로 실행된 SQL 수를 세고, 기준치를 넘으면 로그를 남긴다. */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class QueryCountAspect {
+    private final QueryStats queryStats;
+
+    @Value("${jpashop.query-count.service-threshold:10}")
+    private long threshold;
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        QueryCount count = QueryCounter.start();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryCounter.stop(count);
+
+            String name = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                    + "." + joinPoint.getSignature().getName();
+            boolean exceeded = count.getStatements() > threshold;
+            if (exceeded) {
+                log.warn(">>> [query-count] {} {} (threshold={})", name, count, threshold);
+            }
+            queryStats.record(name, count, exceeded);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.monitor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/* HTTP 요청 단위로 실행된 SQL 수를 세고, 기준치를 넘으면 로그를 남긴다. (N+1 의심) */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements HandlerInterceptor {
+    private static final String QUERY_COUNT = QueryCountInterceptor.class.getName() + ".QUERY_COUNT";
+
+    private final QueryStats queryStats;
+
+    @Value("${jpashop.query-count.request-threshold:10}")
+    private long threshold;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(QUERY_COUNT, QueryCounter.start());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCount count = (QueryCount) request.getAttribute(QUERY_COUNT);
+        if (count == null) {
+            return;
+        }
+        QueryCounter.stop(count);
+
+        /* /api/v2/orders/{id} 처럼 패턴 기준으로 모은다. */
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String name = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+
+        boolean exceeded = count.getStatements() > threshold;
+        if (exceeded) {
+            log.warn(">>> [query-count] {} {} (threshold={})", name, count, threshold);
+        }
+        queryStats.record(name, count, exceeded);
+    }
+}
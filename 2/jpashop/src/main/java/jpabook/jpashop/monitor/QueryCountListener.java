@@ -0,0 +1,27 @@
+package jpabook.jpashop.monitor;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/* p6spy JDBC 이벤트 리스너
+* p6spy-spring-boot-starter가 JdbcEventListener 빈을 자동으로 등록해준다.
+* 범위가 열려있지 않으면(QueryCounter.start() 전) 아무것도 기록하지 않는다. */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounter.recordStatement(timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        if (hasNext) {
+            QueryCounter.recordRow();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.monitor;
+
+/* 현재 스레드에서 실행되는 SQL을 센다.
+* start()로 범위를 열면 stop() 전까지 실행된 SQL이 해당 범위와 바깥 범위 모두에 기록된다.
+* ex) HTTP 요청 > 서비스 메서드 > 다른 서비스 메서드 순으로 중첩될 수 있다. */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static QueryCount start() {
+        QueryCount count = new QueryCount(CURRENT.get());
+        CURRENT.set(count);
+        return count;
+    }
+
+    public static void stop(QueryCount count) {
+        if (count.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(count.getParent());
+        }
+    }
+
+    public static QueryCount current() {
+        return CURRENT.get();
+    }
+
+    static void recordStatement(long elapsedNanos) {
+        for (QueryCount count = CURRENT.get(); count != null; count = count.getParent()) {
+            count.addStatement(elapsedNanos);
+        }
+    }
+
+    static void recordRow() {
+        for (QueryCount count = CURRENT.get(); count != null; count = count.getParent()) {
+            count.addRow();
+        }
+    }
+}
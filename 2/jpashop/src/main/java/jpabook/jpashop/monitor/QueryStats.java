@@ -0,0 +1,76 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/* 엔드포인트 / 서비스 메서드 별 SQL 통계 누적
+* /api/admin/query-stats 에서 조회한다. */
+@Component
+public class QueryStats {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public void record(String name, QueryCount count, boolean exceeded) {
+        Entry entry = entries.computeIfAbsent(name, key -> new Entry());
+        entry.invocations.increment();
+        entry.statements.add(count.getStatements());
+        entry.rows.add(count.getRows());
+        entry.elapsedNanos.add(count.getElapsedNanos());
+        entry.maxStatements.accumulate(count.getStatements());
+        if (exceeded) {
+            entry.exceeded.increment();
+        }
+    }
+
+    /* 기준치를 넘긴 적이 있는 항목만 조회하려면 exceededOnly = true */
+    public List<QueryStat> snapshot(boolean exceededOnly) {
+        return entries.entrySet().stream()
+                .map(e -> e.getValue().toStat(e.getKey()))
+                .filter(stat -> !exceededOnly || stat.exceeded() > 0)
+                .sorted(Comparator.comparingLong(QueryStat::maxStatements).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    public record QueryStat(
+            String name
+            , long invocations
+            , long exceeded
+            , long maxStatements
+            , double avgStatements
+            , long rows
+            , long totalMillis
+    ) {
+    }
+
+    private static class Entry {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder exceeded = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Long::max, 0);
+
+        private QueryStat toStat(String name) {
+            long count = invocations.sum();
+            return new QueryStat(
+                    name
+                    , count
+                    , exceeded.sum()
+                    , maxStatements.get()
+                    , count == 0 ? 0 : (double) statements.sum() / count
+                    , rows.sum()
+                    , TimeUnit.NANOSECONDS.toMillis(elapsedNanos.sum())
+            );
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.monitor;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+/* 2차 캐시 영역별 메트릭
+* - hibernate.second.level.cache.requests/puts : 하이버네이트 통계 (generate_statistics, 스프링 부트가 자동 등록)
+* - cache.gets/puts/evictions/removals : JCache 통계 (caffeine.conf monitoring.statistics), 영역 이름이 cache 태그
+* /actuator/metrics/cache.gets?tag=cache:item&tag=result:hit */
+@Configuration
+public class SecondLevelCacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory emf) {
+        return registry -> {
+            SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+            if (!(sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory)) {
+                return;//2차 캐시를 사용하지 않는 경우
+            }
+            CacheManager cacheManager = regionFactory.getCacheManager();
+            for (String cacheName : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(cacheName), Tags.of("layer", "hibernate"));
+            }
+        };
+    }
+}
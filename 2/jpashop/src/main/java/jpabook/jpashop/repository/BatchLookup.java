@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/* in 쿼리 목록 조회
+* 목록을 파라미터 하나(in :ids)로 바인딩하면
+* - 목록 길이마다 SQL(in (?, ?, ...))이 달라져서 DB 실행 계획과 prepared statement를 재사용하지 못하고
+* - 목록이 길면 DB의 바인드 파라미터 수 제한에 걸린다.
+* 중복을 제거한 키를 최대 MAX_BUCKET_SIZE 개씩 나누고, 청크마다 BUCKET_SIZES 중 가장 가까운 크기까지
+* 마지막 키를 반복해서 채운다. (in 조건이므로 결과는 같다) 키 개수와 상관없이 SQL은 버킷 수 만큼만 만들어진다.
+* 키는 청크 하나에만 들어가므로 청크별 결과를 이어 붙이면 된다. */
+public final class BatchLookup {
+    static final int[] BUCKET_SIZES = {16, 64, 256, 1024};
+    public static final int MAX_BUCKET_SIZE = BUCKET_SIZES[BUCKET_SIZES.length - 1];
+
+    private BatchLookup() {
+    }
+
+    /* query는 키 목록(버킷 크기) 하나로 in 쿼리를 실행하는 함수 - 청크 수만큼 호출된다. */
+    public static <K, T> List<T> findAll(Collection<K> keys, Function<List<K>, List<T>> query) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        distinct.remove(null);
+
+        List<T> result = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_BUCKET_SIZE) {
+            List<K> chunk = distinct.subList(from, Math.min(distinct.size(), from + MAX_BUCKET_SIZE));
+            result.addAll(query.apply(pad(chunk)));
+        }
+        return result;
+    }
+
+    static <K> List<K> pad(List<K> chunk) {
+        int bucketSize = bucketSize(chunk.size());
+        List<K> padded = new ArrayList<>(bucketSize);
+        padded.addAll(chunk);
+        K last = chunk.get(chunk.size() - 1);
+        while (padded.size() < bucketSize) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    static int bucketSize(int size) {
+        for (int bucketSize : BUCKET_SIZES) {
+            if (size <= bucketSize) {
+                return bucketSize;
+            }
+        }
+        throw new IllegalArgumentException("버킷보다 큰 청크입니다. size=" + size);
+    }
+}
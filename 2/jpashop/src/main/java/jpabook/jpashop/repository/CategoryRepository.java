@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category){
+        em.persist(category);
+    }
+
+    public Category findOne(Long id){
+        return em.find(Category.class, id);
+    }
+
+    public List<Category> findAll(){
+        return em.createQuery("SELECT c FROM Category c ORDER BY c.path, c.id", Category.class)
+                .getResultList();
+    }
+
+    /* 하위 카테고리 전체 (자신 제외) - path 인덱스 range scan 한번으로 모든 레벨을 조회한다. */
+    public List<Category> findDescendants(Category root){
+        return em.createQuery(
+                        "SELECT c FROM Category c" +
+                        " WHERE c.path LIKE :prefix" +
+                        " ORDER BY c.path, c.id", Category.class)
+                .setParameter("prefix", root.getSubtreePath() + "%")
+                .getResultList();
+    }
+
+    /* 카테고리와 모든 하위 카테고리에 속한 상품 - category_item 조인 한번으로 조회한다. */
+    public List<Item> findItemsInSubtree(Category root){
+        return em.createQuery(
+                        "SELECT DISTINCT i FROM Category c" +
+                        " JOIN c.items i" +
+                        " WHERE c.id = :id" +
+                        " OR c.path LIKE :prefix" +
+                        " ORDER BY i.id", Item.class)
+                .setParameter("id", root.getId())
+                .setParameter("prefix", root.getSubtreePath() + "%")
+                .getResultList();
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/* 상품별 일 매출 집계(DailyItemSales)에 더할 값
+* 여러 주문의 증감을 키 순서로 모아서 반영하면, 동시에 커밋하는 트랜잭션끼리 row 락 순서가 엇갈리지 않는다. */
+public record DailyItemSalesDelta(
+        LocalDate salesDate
+        , Long itemId
+        , OrderStatus status
+        , long quantity
+        , long revenue
+) implements Comparable<DailyItemSalesDelta> {
+    private static final Comparator<DailyItemSalesDelta> KEY_ORDER = Comparator
+            .comparing(DailyItemSalesDelta::salesDate)
+            .thenComparing(DailyItemSalesDelta::itemId)
+            .thenComparing(DailyItemSalesDelta::status);
+
+    public static DailyItemSalesDelta of(LocalDate salesDate, Long itemId, OrderStatus status, long quantity, long revenue) {
+        return new DailyItemSalesDelta(salesDate, itemId, status, quantity, revenue);
+    }
+
+    public boolean sameKey(DailyItemSalesDelta other) {
+        return KEY_ORDER.compare(this, other) == 0;
+    }
+
+    public DailyItemSalesDelta plus(DailyItemSalesDelta other) {
+        return new DailyItemSalesDelta(salesDate, itemId, status, quantity + other.quantity, revenue + other.revenue);
+    }
+
+    public boolean isZero() {
+        return quantity == 0 && revenue == 0;
+    }
+
+    @Override
+    public int compareTo(DailyItemSalesDelta other) {
+        return KEY_ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,154 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.dto.SalesReportDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+@Repository
+@RequiredArgsConstructor
+public class DailyItemSalesRepository {
+    private static final String ADD_SQL = "update daily_item_sales" +
+            " set quantity = quantity + ?, revenue = revenue + ?" +
+            " where sales_date = ? and item_id = ? and status = ?";
+
+    /* 원본 주문에서 하루치를 집계 - ordes의 (orderDate, order_id) 인덱스 범위로 읽는다. */
+    private static final String REBUILD_DAY_SQL = "insert into daily_item_sales (sales_date, item_id, status, quantity, revenue)" +
+            " select cast(o.order_date as date), oi.item_id, o.status, sum(oi.count), sum(cast(oi.order_price as bigint) * oi.count)" +
+            " from ordes o" +
+            " join order_item oi on oi.order_id = o.order_id" +
+            " where o.order_date >= ? and o.order_date < ?" +
+            " group by cast(o.order_date as date), oi.item_id, o.status";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /* 키 순서로 정렬된 증감을 batch update로 반영하고 row별 update 건수를 반환한다. (0이면 아직 row가 없다) */
+    public int[] addAll(List<DailyItemSalesDelta> deltas){
+        int[][] counts = jdbcTemplate.batchUpdate(ADD_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setLong(1, delta.quantity());
+            ps.setLong(2, delta.revenue());
+            ps.setDate(3, Date.valueOf(delta.salesDate()));
+            ps.setLong(4, delta.itemId());
+            ps.setString(5, delta.status().name());
+        });
+        return Arrays.stream(counts)
+                .flatMapToInt(Arrays::stream)
+                .map(count -> count == Statement.SUCCESS_NO_INFO ? 1 : count)
+                .toArray();
+    }
+
+    /* 수량, 금액이 0인 row를 만든다. 다른 트랜잭션이 먼저 만들었으면 그대로 둔다.
+    * 현재 트랜잭션의 연결에서 실행하고, 중복으로 실패하면 savepoint까지만 롤백해서 트랜잭션은 계속 사용할 수 있다. */
+    public void insertIfAbsent(DailyItemSalesDelta key){
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.update("insert into daily_item_sales (sales_date, item_id, status, quantity, revenue) values (?, ?, ?, 0, 0)",
+                        Date.valueOf(key.salesDate()), key.itemId(), key.status().name());
+            } catch (DuplicateKeyException e) {
+                //이미 있음
+                connection.rollback(savepoint);
+                return null;
+            }
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    /* 하루치 집계를 지우고 원본 주문에서 다시 만든다. */
+    public int rebuildDay(LocalDate day){
+        jdbcTemplate.update("delete from daily_item_sales where sales_date = ?", Date.valueOf(day));
+        return jdbcTemplate.update(REBUILD_DAY_SQL,
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    /* [from, to] 밖의 집계를 지운다. - 주문이 없으면 전체 */
+    public int deleteOutside(LocalDate from, LocalDate to){
+        if(from == null || to == null){
+            return jdbcTemplate.update("delete from daily_item_sales");
+        }
+        return jdbcTemplate.update("delete from daily_item_sales where sales_date < ? or sales_date > ?",
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public Optional<LocalDate> findFirstOrderDate(){
+        return orderDate("min");
+    }
+
+    public Optional<LocalDate> findLastOrderDate(){
+        return orderDate("max");
+    }
+
+    private Optional<LocalDate> orderDate(String function){
+        LocalDateTime orderDate = em.createQuery("select " + function + "(o.orderDate) from Order o", LocalDateTime.class)
+                .getSingleResult();
+        return Optional.ofNullable(orderDate).map(LocalDateTime::toLocalDate);
+    }
+
+    /* 매출 조회 - 집계 테이블만 읽는다.
+    * itemId, status가 null이면 조건에서 뺀다. */
+    public List<SalesReportDto> findReport(LocalDate from, LocalDate to, Long itemId, OrderStatus status, SalesReportGroup group){
+        StringJoiner keys = new StringJoiner(", ");
+        if(group.byDate()){
+            keys.add("s.id.salesDate");
+        }
+        if(group.byItem()){
+            keys.add("s.id.itemId");
+        }
+        keys.add("s.id.status");
+
+        String jpql = "select " + keys + ", sum(s.quantity), sum(s.revenue)" +
+                " from DailyItemSales s" +
+                " where s.id.salesDate between :from and :to";
+        if(itemId != null){
+            jpql += " and s.id.itemId = :itemId";
+        }
+        if(status != null){
+            jpql += " and s.id.status = :status";
+        }
+        /* 취소로 0이 된 row는 제외 */
+        jpql += " group by " + keys +
+                " having sum(s.quantity) <> 0 or sum(s.revenue) <> 0" +
+                " order by " + keys;
+
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if(itemId != null){
+            query.setParameter("itemId", itemId);
+        }
+        if(status != null){
+            query.setParameter("status", status);
+        }
+        return query.getResultList().stream()
+                .map(row -> toDto(row, group))
+                .toList();
+    }
+
+    private static SalesReportDto toDto(Object[] row, SalesReportGroup group){
+        int index = 0;
+        LocalDate salesDate = group.byDate() ? (LocalDate) row[index++] : null;
+        Long itemId = group.byItem() ? (Long) row[index++] : null;
+        OrderStatus status = (OrderStatus) row[index++];
+        long quantity = ((Number) row[index++]).longValue();
+        long revenue = ((Number) row[index]).longValue();
+        return SalesReportDto.of(salesDate, itemId, status, quantity, revenue);
+    }
+}
@@ -1,17 +1,67 @@
 package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.ItemListDto;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
+    /* 어떤 엔티티 테이블과도 겹치지 않는 query space - native update가 2차 캐시 영역을 비우지 않게 한다. */
+    private static final String NO_CACHE_REGION = "item_stock_update";
+
+    /* 상품 목록 - 엔티티 대신 화면에 필요한 컬럼만 DTO로 조회한다.
+    * 엔티티로 조회하면 영속성 컨텍스트, 2차 캐시, categories 프록시까지 상품 수만큼 만들어진다.
+    * 재고가 분할된 상품은 shard 합계를 서브쿼리로 계산한다. (Item.getStockQuantity와 같은 값) */
+    private static final String LIST_STOCK_QUANTITY = "CASE WHEN i.shardedStock = true" +
+            " THEN (SELECT CAST(COALESCE(SUM(s.quantity), 0) AS Integer) FROM ItemStockShard s WHERE s.item = i)" +
+            " ELSE i.stockQuantity END";
+
+    private static final String LIST_DTO_SELECT = "SELECT new jpabook.jpashop.dto.ItemListDto(" +
+            " i.id, i.name, i.price, " + LIST_STOCK_QUANTITY + ")" +
+            " FROM Item i";
+
+    /* 정렬 가능한 속성 -> JPQL 경로, 목록에 없는 정렬 조건은 무시한다. (요청 값이 JPQL에 그대로 들어가지 않도록)
+    * 재고는 화면에 표시하는 값(분할된 상품은 shard 합계)으로 정렬한다. */
+    private static final Map<String, String> LIST_SORT_PATHS = Map.of(
+            "id", "i.id"
+            , "name", "i.name"
+            , "price", "i.price"
+            , "stockQuantity", LIST_STOCK_QUANTITY
+    );
+
+    /* 일괄 수정시 JDBC batch 하나에 담는 update 수 */
+    private static final int BULK_BATCH_SIZE = 1000;
+
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
 
     public void save(Item item){
         if(item.getId() == null){
@@ -28,12 +78,198 @@ public class ItemRepository {
         }
     }
 
+    /* 재고 차감 - 조건부 update 한번으로 처리한다.
+    * 엔티티로 읽고 빼고 flush 하는 방식은 동시에 주문하면 갱신이 유실되거나 비관적 락이 필요하지만,
+    * DB가 row 단위로 "재고 >= 수량" 확인과 차감을 같이 하므로 락 없이도 재고가 음수가 되지 않는다.
+    * 버전도 같이 올려서 화면에서 수정중인 Item은 낙관적 락으로 실패하게 한다.
+    * 재고가 부족하면 false */
+    public boolean decreaseStock(Long itemId, int quantity){
+        return updateStock(itemId,
+                "update item" +
+                " set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                " where item_id = :id" +
+                " and stock_quantity >= :quantity", quantity);
+    }
+
+    /* 재고 복구 (주문 취소) - 상품이 없거나 재고가 분할된 상품이면 false (분할된 재고는 StockService가 shard에 복구한다) */
+    public boolean increaseStock(Long itemId, int quantity){
+        return updateStock(itemId,
+                "update item" +
+                " set stock_quantity = stock_quantity + :quantity, version = version + 1" +
+                " where item_id = :id" +
+                " and sharded_stock = false", quantity);
+    }
+
+    /* JPQL 벌크 update는 2차 캐시의 Item 영역 전체를 비우기 때문에 주문마다 캐시가 무효화된다.
+    * 그래서 SQL로 실행하고(동기화할 캐시 영역 없음) 변경한 Item 하나만 캐시에서 무효화한다.
+    * - 실행 전 flush : JPQL 처럼 아직 반영되지 않은 Item 변경이 있으면 먼저 반영한다.
+    * 재고 차감은 캐시가 아닌 DB 값으로 판단하므로 캐시 상태와 상관없이 재고가 틀어지지 않는다. */
+    private boolean updateStock(Long itemId, String sql, int quantity){
+        em.flush();
+        lockCacheUntilCompletion(itemId);
+        int updated = em.createNativeQuery(sql)
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(NO_CACHE_REGION)
+                .executeUpdate();
+        refreshIfManaged(itemId);
+        return updated == 1;
+    }
+
+    /* 엔티티 update와 같은 방식(READ_WRITE soft lock)으로 캐시를 무효화한다.
+    * 단순히 evict만 하면 커밋 전에 DB에서 이전 재고를 읽은 다른 트랜잭션이 다시 캐시에 넣을 수 있다.
+    * 잠금 ~ 트랜잭션 종료 사이와 그 이전에 시작된 조회 결과는 캐시에 저장되지 않는다. */
+    private void lockCacheUntilCompletion(Long itemId){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = itemPersister(session);
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        if(cacheAccess == null){
+            return;
+        }
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            em.getEntityManagerFactory().getCache().evict(Item.class, itemId);
+            return;
+        }
+        Object key = cacheAccess.generateCacheKey(itemId, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cacheAccess.lockItem(session, key, null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cacheAccess.unlockItem(session, key, lock);
+            }
+        });
+    }
+
+    /* 가격 일괄 수정 (상품 아이디 -> 가격) - 수정된 상품 수 */
+    public int bulkUpdatePrices(Map<Long, Integer> prices){
+        return bulkUpdate("update item set price = ?, version = version + 1 where item_id = ?", prices);
+    }
+
+    /* 재고 일괄 수정 (상품 아이디 -> 재고) - 재고가 분할된 상품은 수정하지 않는다. (StockService) */
+    public int bulkUpdateStocks(Map<Long, Integer> stocks){
+        return bulkUpdate("update item set stock_quantity = ?, version = version + 1 where item_id = ? and sharded_stock = false", stocks);
+    }
+
+    /* 엔티티로 조회해서 변경하면 상품마다 select + update, 영속성 컨텍스트와 2차 캐시에 상품 수만큼 객체가 쌓인다.
+    * 현재 트랜잭션의 커넥션에서 JDBC batch update로 실행하고 아래 순서로 일관성을 맞춘다.
+    * - 실행 전 flush : 아직 반영되지 않은 Item 변경이 일괄 수정 값을 덮어쓰지 않게 한다.
+    * - 2차 캐시 : 건별 잠금 대신 JPQL 벌크 update와 같이 Item 영역 전체를 잠그고 비운다. (트랜잭션 종료시 해제)
+    * - 영속성 컨텍스트 : 이미 로딩된 Item은 DB 값으로 다시 읽는다.
+    * 아이디 순서로 update 해서 같은 상품을 수정하는 다른 일괄 수정과 교착 상태가 생기지 않게 한다. */
+    private int bulkUpdate(String sql, Map<Long, Integer> values){
+        if(values.isEmpty()){
+            return 0;
+        }
+        em.flush();
+        lockCacheRegionUntilCompletion();
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(new TreeMap<>(values).entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, BULK_BATCH_SIZE, (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+        refreshManaged(values.keySet());
+        return Arrays.stream(counts)
+                .flatMapToInt(Arrays::stream)
+                .map(count -> count == Statement.SUCCESS_NO_INFO ? 1 : count)
+                .sum();
+    }
+
+    private void lockCacheRegionUntilCompletion(){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityDataAccess cacheAccess = itemPersister(session).getCacheAccessStrategy();
+        if(cacheAccess == null){
+            return;
+        }
+        SoftLock lock = cacheAccess.lockRegion();
+        cacheAccess.removeAll(session);
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cacheAccess.unlockRegion(lock);
+                }
+            });
+        }
+    }
+
+    /* 영속성 컨텍스트에 있는 Item만 확인한다. (수정한 아이디 수와 상관없음) */
+    private void refreshManaged(Set<Long> itemIds){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if(entry.getKey() instanceof Item item && itemIds.contains(item.getId())){
+                em.refresh(item);
+            }
+        }
+    }
+
+    /* 벌크 update는 영속성 컨텍스트를 거치지 않는다.
+    * 이미 로딩된 Item이 있으면 DB 값으로 다시 읽어서 이후 로직과 dirty checking이 이전 재고를 사용하지 않게 한다. */
+    private void refreshIfManaged(Long itemId){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(itemId, itemPersister(session)));
+        if(managed != null){
+            em.refresh(managed);
+        }
+    }
+
+    private static EntityPersister itemPersister(SessionImplementor session){
+        return session.getFactory().getMappingMetamodel().getEntityDescriptor(Item.class);
+    }
+
     public Item findOne(Long id){
         return em.find(Item.class, id);
     }
 
+    /* 아이디 목록으로 한번에 조회 - 조회 순서는 보장하지 않는다. (BatchLookup) */
+    public List<Item> findAllByIds(Collection<Long> ids){
+        return BatchLookup.findAll(ids, chunk -> em.createQuery("SELECT i FROM Item i WHERE i.id in :ids", Item.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
+
+    /* 비관적 락 - 재고 분할처럼 드물게 실행되는 관리 작업에서만 사용 */
+    public Item findOneForUpdate(Long id){
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
     public List<Item> findAll(){
         return em.createQuery("SELECT i FROM Item i", Item.class)
                 .getResultList();
     }
+
+    /* 상품 목록 페이지
+    * count 쿼리는 필요할 때만 실행한다. - 첫 페이지가 size보다 적거나 마지막 페이지이면 조회한 건수로 계산 */
+    public Page<ItemListDto> findPage(Pageable pageable){
+        List<ItemListDto> content = em.createQuery(LIST_DTO_SELECT + orderBy(pageable.getSort()), ItemListDto.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> em.createQuery("SELECT COUNT(i) FROM Item i", Long.class).getSingleResult());
+    }
+
+    /* 주문 화면 상품 선택 목록 - 페이지 없이 전체를 이름순으로 조회한다. */
+    public List<ItemListDto> findAllListDto(){
+        return em.createQuery(LIST_DTO_SELECT + " ORDER BY i.name, i.id", ItemListDto.class)
+                .getResultList();
+    }
+
+    /* 같은 값이 있어도 페이지 사이에 상품이 중복/누락되지 않도록 마지막에 아이디로 정렬한다. */
+    private static String orderBy(Sort sort){
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            String path = LIST_SORT_PATHS.get(order.getProperty());
+            if(path == null){
+                continue;
+            }
+            orderBy.add(path + (order.isAscending() ? " ASC" : " DESC"));
+            hasId |= "id".equals(order.getProperty());
+        }
+        if(!hasId){
+            orderBy.add("i.id ASC");
+        }
+        return orderBy.toString();
+    }
 }
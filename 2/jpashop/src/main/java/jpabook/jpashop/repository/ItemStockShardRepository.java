@@ -0,0 +1,87 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.domain.item.ItemStockShard;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemStockShardRepository {
+    private final EntityManager em;
+
+    public void save(ItemStockShard shard){
+        em.persist(shard);
+    }
+
+    public int countByItem(Long itemId){
+        return em.createQuery("select count(s) from ItemStockShard s where s.item.id = :itemId", Long.class)
+                .setParameter("itemId", itemId)
+                .getSingleResult()
+                .intValue();
+    }
+
+    /* 상품의 모든 shard를 잠그고 최신 값으로 조회한다. (shardNo 순서로 잠가서 데드락을 피한다) */
+    public List<ItemStockShard> findAllByItemForUpdate(Long itemId){
+        List<ItemStockShard> shards = em.createQuery(
+                        "select s from ItemStockShard s" +
+                        " where s.item.id = :itemId" +
+                        " order by s.shardNo", ItemStockShard.class)
+                .setParameter("itemId", itemId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        /* 이미 영속성 컨텍스트에 있던 shard는 벌크 update 이전 값일 수 있다. */
+        shards.forEach(em::refresh);
+        return shards;
+    }
+
+    /* 재고가 quantity 이상인 shard 하나를 기다리지 않고 잠근다. - shard 번호, 없으면 null
+    * 다른 트랜잭션이 잠근 shard는 건너뛰기 때문에(skip locked) 락을 기다리면서 다른 shard 락을 쥐고 있는 경우가 생기지 않는다.
+    * start 번호부터 찾아서 동시에 들어온 주문이 여러 shard로 흩어지게 한다. */
+    public Integer lockAvailable(Long itemId, int start, int quantity){
+        return em.unwrap(Session.class).createNativeQuery(
+                        "select shard_no from item_stock_shard" +
+                        " where item_id = :itemId" +
+                        " and quantity >= :quantity" +
+                        " order by case when shard_no >= :start then 0 else 1 end, shard_no" +
+                        " limit 1" +
+                        " for update skip locked", Integer.class)
+                .setParameter("itemId", itemId)
+                .setParameter("quantity", quantity)
+                .setParameter("start", start)
+                .addSynchronizedEntityClass(ItemStockShard.class)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /* shard 하나에서 조건부 차감 - 재고가 부족하면 false (ItemRepository.decreaseStock 참고) */
+    public boolean decrease(Long itemId, int shardNo, int quantity){
+        return em.createQuery(
+                        "update ItemStockShard s" +
+                        " set s.quantity = s.quantity - :quantity" +
+                        " where s.item.id = :itemId" +
+                        " and s.shardNo = :shardNo" +
+                        " and s.quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .setParameter("shardNo", shardNo)
+                .executeUpdate() == 1;
+    }
+
+    public boolean increase(Long itemId, int shardNo, int quantity){
+        return em.createQuery(
+                        "update ItemStockShard s" +
+                        " set s.quantity = s.quantity + :quantity" +
+                        " where s.item.id = :itemId" +
+                        " and s.shardNo = :shardNo")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .setParameter("shardNo", shardNo)
+                .executeUpdate() == 1;
+    }
+}
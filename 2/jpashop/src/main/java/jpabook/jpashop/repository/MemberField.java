@@ -0,0 +1,30 @@
+package jpabook.jpashop.repository;
+
+/* 회원 부분 조회에서 선택할 수 있는 필드 - /api/v2/members?fields=id,name */
+public enum MemberField implements SparseField {
+    ID("id", "m.id"),
+    NAME("name", "m.name"),
+    CITY("city", "m.address.city"),
+    STREET("street", "m.address.street"),
+    ZIPCODE("zipcode", "m.address.zipcode"),
+    CREATED_AT("createdAt", "m.createdAt"),
+    MODIFIED_AT("modifiedAt", "m.modifiedAt");
+
+    private final String param;
+    private final String path;
+
+    MemberField(String param, String path) {
+        this.param = param;
+        this.path = path;
+    }
+
+    @Override
+    public String param() {
+        return param;
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+}
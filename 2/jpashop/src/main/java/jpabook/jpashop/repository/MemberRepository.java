@@ -2,11 +2,15 @@ package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
@@ -25,11 +29,57 @@ public class MemberRepository {
         return em.find(Member.class, id);
     }
 
+    /* 아이디 목록으로 한번에 조회 - 조회 순서는 보장하지 않는다. (BatchLookup) */
+    public List<Member> findAllByIds(Collection<Long> ids){
+        return BatchLookup.findAll(ids, chunk -> em.createQuery("SELECT m FROM Member m WHERE m.id in :ids", Member.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
+
     public List<Member> findAll(){
         return em.createQuery("SELECT m FROM Member m", Member.class)
                 .getResultList();
     }
 
+    /* 부분 조회 - 요청한 필드의 컬럼만 Tuple로 조회한다. (SparseField) */
+    public List<Tuple> findAll(List<MemberField> fields){
+        return em.createQuery(SparseField.select(fields) + " FROM Member m", Tuple.class)
+                .getResultList();
+    }
+
+    /* 중복 검사용 - 엔티티를 만들지 않고 존재 여부만 조회한다. */
+    public boolean existsByName(String name){
+        return !em.createQuery("SELECT m.id FROM Member m WHERE m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /* 이름 목록 중 이미 가입된 이름 (BatchLookup) */
+    public List<String> findExistingNames(Collection<String> names){
+        return BatchLookup.findAll(names, chunk -> em.createQuery("SELECT m.name FROM Member m WHERE m.name in :names", String.class)
+                .setParameter("names", chunk)
+                .getResultList());
+    }
+
+    /* 전체 이름 - 트랜잭션 안에서 사용하고 닫아야 한다. (MemberNameFilter) */
+    public Stream<String> streamAllNames(){
+        return em.createQuery("SELECT m.name FROM Member m WHERE m.name is not null", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream();
+    }
+
+    /* 유니크 제약조건 위반을 insert 시점에 확인하기 위해 사용한다.
+    * 예외는 @Repository 예외 변환으로 DataIntegrityViolationException이 된다. */
+    public void flush(){
+        em.flush();
+    }
+
+    public void clear(){
+        em.clear();
+    }
+
     public List<Member> findeByName(String name){
         return em.createQuery("SELECT m FROM Member m WHERE m.name = :name", Member.class)
                 .setParameter("name", name)
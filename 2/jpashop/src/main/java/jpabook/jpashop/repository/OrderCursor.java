@@ -0,0 +1,45 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/* 키셋(seek) 페이징용 커서
+* (orderDate, order_id) 값을 담고 있으며, 클라이언트에는 Base64로 인코딩한 문자열(opaque)로만 전달한다. */
+public record OrderCursor(
+        LocalDateTime orderDate
+        , Long orderId
+) {
+    private static final String DELIMITER = "|";
+
+    public static OrderCursor of(LocalDateTime orderDate, Long orderId) {
+        return new OrderCursor(orderDate, orderId);
+    }
+
+    public static OrderCursor from(Order entity) {
+        return new OrderCursor(entity.getOrderDate(), entity.getId());
+    }
+
+    public String encode() {
+        String raw = orderDate + DELIMITER + orderId;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(DELIMITER);
+            return new OrderCursor(
+                    LocalDateTime.parse(raw.substring(0, index))
+                    , Long.valueOf(raw.substring(index + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor=" + cursor, e);
+        }
+    }
+}
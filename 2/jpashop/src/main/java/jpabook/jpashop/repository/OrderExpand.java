@@ -0,0 +1,75 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/* 주문 조회시 같이 가져올(fetch) 연관관계 - ?expand=member,delivery,items
+* 선택한 조합으로 엔티티 그래프를 만들어서 주문 조회 쿼리 한번에 fetch 한다. (OrderRepository.findAll(Set<OrderExpand>, ...))
+* 선택하지 않은 연관관계는 지연 로딩된다. */
+public enum OrderExpand {
+    MEMBER("member") {
+        @Override
+        void addTo(EntityGraph<Order> graph) {
+            graph.addAttributeNodes("member");
+        }
+    },
+    DELIVERY("delivery") {
+        @Override
+        void addTo(EntityGraph<Order> graph) {
+            graph.addAttributeNodes("delivery");
+        }
+    },
+    ITEMS("items") {
+        @Override
+        void addTo(EntityGraph<Order> graph) {
+            Subgraph<OrderItem> orderItems = graph.addSubgraph("orderItems");
+            orderItems.addAttributeNodes("item");
+        }
+    };
+
+    private final String param;
+
+    OrderExpand(String param) {
+        this.param = param;
+    }
+
+    abstract void addTo(EntityGraph<Order> graph);
+
+    /* "member,delivery,items" -> 조합 (대소문자, 공백 무시) */
+    public static EnumSet<OrderExpand> parse(String expand) {
+        EnumSet<OrderExpand> result = EnumSet.noneOf(OrderExpand.class);
+        if (!StringUtils.hasText(expand)) {
+            return result;
+        }
+        for (String token : expand.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            result.add(of(name));
+        }
+        return result;
+    }
+
+    private static OrderExpand of(String param) {
+        for (OrderExpand value : values()) {
+            if (value.param.equalsIgnoreCase(param)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("지원하지 않는 expand 입니다. expand=" + param + " (member, delivery, items)");
+    }
+
+    static EntityGraph<Order> toGraph(EntityManager em, Set<OrderExpand> expand) {
+        EntityGraph<Order> graph = em.createEntityGraph(Order.class);
+        expand.forEach(value -> value.addTo(graph));
+        return graph;
+    }
+}
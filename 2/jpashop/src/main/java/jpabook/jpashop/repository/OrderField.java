@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository;
+
+/* 주문 부분 조회에서 선택할 수 있는 필드 - /api/v3/orders?fields=orderId,name,orderStatus
+* 이름은 OrderApiController.OrderDto와 같다. 회원, 배송 필드를 선택했을 때만 조인된다. (묵시적 조인) */
+public enum OrderField implements SparseField {
+    ORDER_ID("orderId", "o.id"),
+    NAME("name", "o.member.name"),
+    ORDER_DATE("orderDate", "o.orderDate"),
+    ORDER_STATUS("orderStatus", "o.status"),
+    ADDRESS("address", "o.delivery.address"),
+    TOTAL_PRICE("totalPrice", "o.totalPrice"),
+    ITEM_COUNT("itemCount", "o.itemCount");
+
+    private final String param;
+    private final String path;
+
+    OrderField(String param, String path) {
+        this.param = param;
+        this.path = path;
+    }
+
+    @Override
+    public String param() {
+        return param;
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+}
@@ -1,17 +1,35 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import jpabook.jpashop.domain.Order;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.joining;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
+    /* 페이징 정렬 속성 - 주문 아이디 순, 키셋 페이징(주문일, 주문 아이디) 순 */
+    private static final List<String> ID_ORDER = List.of("id");
+    private static final List<String> CURSOR_ORDER = List.of("orderDate", "id");
+
     private final EntityManager em;
 
+    /* 검색 조건 조합(shape) -> 등록된 Named Query 이름 */
+    private final Map<Integer, String> searchQueryNames = new ConcurrentHashMap<>();
+
     public void save(Order order){
         em.persist(order);
     }
@@ -20,69 +38,104 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
-    public List<Order> findAll(OrderSearch orederSearch){
-        /*
-        List<Order> resultList = em.createQuery("SELEC O FROM ORDER O JOIN O.MEMBER M" +
-                        "WHERE O.STATUS = :STATUS" +
-                        "AND M.NAME LIKE :NAME", Order.class)
-                .setParameter("STATUS", orederSearch.getOrderStatus())
-                .setParameter("NAME", orederSearch.getMemberName())
-                .setMaxResults(1000)//최대 천건을 조회한다.
-                .getResultList();
-        */
+    /* 주문 검색
+    * 요청마다 JPQL 문자열이나 Criteria를 새로 만들지 않고,
+    * 검색 조건 조합(shape)별로 한 번만 Named Query로 등록해 둔 뒤 파라미터만 바인딩한다.
+    * 조합은 최대 2^n개(OrderSearchCondition 참고)이므로 캐시가 무한히 커지지 않는다. */
+    public List<Order> findAll(OrderSearch orderSearch){
+        EnumSet<OrderSearchCondition> conditions = OrderSearchCondition.of(orderSearch);
+        String queryName = searchQueryNames.computeIfAbsent(
+                OrderSearchCondition.shapeOf(conditions)
+                , shape -> registerSearchQuery(shape, conditions)
+        );
 
-        /* JPA Criteria */
+        TypedQuery<Order> query = em.createNamedQuery(queryName, Order.class)
+                .setMaxResults(orderSearch.limitOrDefault());//최대 천건을 조회한다.
+        for (OrderSearchCondition condition : conditions) {
+            condition.bind(query, orderSearch);
+        }
+        return query.getResultList();
+    }
 
-        /* Querydsl */
+    private String registerSearchQuery(int shape, EnumSet<OrderSearchCondition> conditions) {
+        String queryName = "Order.search." + shape;
+        /* 트랜잭션 밖에서 호출되면 스프링이 감싼 프록시 쿼리가 반환되므로 하이버네이트 쿼리로 꺼내서 등록한다.
+        * 결과 타입은 조회할 때 createNamedQuery(queryName, Order.class)로 다시 지정하므로 여기서는 와일드카드로 받는다. */
+        Query<?> query = em.createQuery(OrderSearchCondition.toJpql(conditions), Order.class)
+                .unwrap(Query.class);
+        em.getEntityManagerFactory().addNamedQuery(queryName, query);
+        return queryName;
+    }
 
-        return null;
+    /* N+1문제를 해결하기 위해 fetch join 대신 엔티티 그래프를 사용한다.
+    * fetch 할 연관관계 조합마다 JPQL을 따로 작성하지 않고, 그래프 이름(Order.GRAPH_*)으로 정한다. */
+    public List<Order> findAll(String graphName){
+        return em.createQuery("select o from Order o order by o.id", Order.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(graphName))
+                .getResultList();
     }
 
-    /* N+1문제를 해결하기 위해 join fetch를 사용한다. */
-    public List<Order> findAllWithMemberDelivery(){
-        //재사용이 가능하다.
-        return em.createQuery(
-                "select o from Order o"+
-                    "join fetch o.member m"+
-                    "join fetch o.delivery d",
-                    Order.class
-        ).getResultList();
+    /* 부분 조회 - ?fields=orderId,name,orderStatus 로 요청한 필드의 컬럼만 Tuple로 조회한다. (SparseField) */
+    public List<Tuple> findAll(List<OrderField> fields, int offset, int limit){
+        return em.createQuery(SparseField.select(fields) + " from Order o order by o.id", Tuple.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
-    /* N+1문제를 해결하기 위해 join fetch를 사용한다.
+    /* ?expand=member,delivery,items 로 선택한 연관관계만 fetch 한다.
     * 페이징 처리를 위해 offset, limit를 파라미터로 받는다. */
-    public List<Order> findAllWithMemberDelivery(int offsert, int liimt){
-        //재사용이 가능하다.
-        return em.createQuery(
-                "select o from Order o"+
-                        "join fetch o.member m"+
-                        "join fetch o.delivery d",
-                Order.class
-        ).setFirstResult(offsert)
-                .setMaxResults(liimt)
+    public List<Order> findAll(Set<OrderExpand> expand, int offset, int limit){
+        return findPage(OrderExpand.toGraph(em, expand), "", ID_ORDER, offset, limit)
                 .getResultList();
     }
 
-    public List<Order> findAllWithItem() {
-        /* 현재는 데이터가 중복으로 나온다.
-        return em.createQuery(
-                "select o from Order o"+
-                   "fetch join o.member m"+
-                   "fetch join o.delivery d"+
-                   "fetch join o.orderItems oi"+
-                   "fetch join oi.item i"
-                , Order.class
-        ).getResultList();
-        */
-        /* 중복제거 - db에서는 모든 데이터가 동일해야 중복되나,
-        jpa distinct는 아이디가 동일하면 중복을 제거한다. */
+    /* 키셋(seek) 페이징
+    * offset 방식은 앞 페이지의 row를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+    * (orderDate, order_id) 인덱스에서 마지막으로 조회한 위치 다음부터 limit 만큼만 읽는다.
+    * after가 null이면 첫 페이지를 조회한다. */
+    public List<Order> findAll(Set<OrderExpand> expand, OrderCursor after, int limit){
+        /* 선행 컬럼(orderDate)을 범위 조건으로 두어 인덱스 range scan이 가능하도록 작성 */
+        String where = after == null ? "" : " where o.orderDate >= :orderDate" +
+                " and (o.orderDate > :orderDate or o.id > :orderId)";
+
+        TypedQuery<Order> query = findPage(OrderExpand.toGraph(em, expand), where, CURSOR_ORDER, 0, limit);
+        if(after != null){
+            query.setParameter("orderDate", after.orderDate())
+                    .setParameter("orderId", after.orderId());
+        }
+        return query.getResultList();
+    }
+
+    /* 컬렉션(orderItems)을 fetch 하면서 setFirstResult/setMaxResults를 사용하면
+    * 하이버네이트는 전체 row를 읽은 뒤 메모리에서 페이징한다.
+    * 그래서 컬렉션을 fetch 하는 그래프는 서브쿼리(derived table)에서 주문 아이디를 먼저 자르고, 조인한 주문에 그래프를 fetch 한다. (쿼리 한번)
+    * in (서브쿼리 limit) 형태는 MySQL 등에서 지원하지 않으므로 OrderQueryRepository.findAlBylDto_flat과 같이 조인한다.
+    * ToOne만 fetch 하는 그래프는 row 수가 늘지 않으므로 바로 페이징한다.
+    * where는 별칭 o 기준으로 작성하고, 정렬은 속성 이름으로 받아 쿼리마다 별칭을 붙인다. */
+    private TypedQuery<Order> findPage(EntityGraph<?> graph, String where, List<String> sortProperties, int offset, int limit){
+        boolean fetchesCollection = graph.getAttributeNodes().stream()
+                .anyMatch(node -> node.getAttributeName().equals("orderItems"));
+        if(!fetchesCollection){
+            return em.createQuery("select o from Order o" + where + orderBy("o", sortProperties), Order.class)
+                    .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph)
+                    .setFirstResult(offset)
+                    .setMaxResults(limit);
+        }
         return em.createQuery(
-                "select distinct o from Order o"+
-                        "fetch join o.member m"+
-                        "fetch join o.delivery d"+
-                        "fetch join o.orderItems oi"+
-                        "fetch join oi.item i"
-                , Order.class
-        ).getResultList();
+                        "select p from (select o.id as id from Order o" + where + orderBy("o", sortProperties) + " limit :limit offset :offset) page" +
+                                " join Order p on p.id = page.id" +
+                                orderBy("p", sortProperties)
+                        , Order.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset);
+    }
+
+    /* " order by alias.property1, alias.property2 ..." */
+    private static String orderBy(String alias, List<String> sortProperties){
+        return sortProperties.stream()
+                .map(property -> alias + "." + property)
+                .collect(joining(", ", " order by ", ""));
     }
 }
@@ -3,10 +3,31 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter
 @Setter
 public class OrderSearch {
+    public static final int DEFAULT_LIMIT = 1000;
+
     private String memberName;
     private OrderStatus orderStatus;//주문상태
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;//주문일 시작(포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;//주문일 종료(포함)
+    private String itemName;//주문 상품명
+
+    private Integer limit;//최대 조회 건수, 최대 DEFAULT_LIMIT 건
+    private String after;//키셋 페이징 커서(OrderCursor), 이전 조회의 마지막 주문 다음부터 조회한다.
+
+    public int limitOrDefault() {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, DEFAULT_LIMIT);
+    }
 }
@@ -0,0 +1,132 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.Query;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+
+/* OrderSearch의 검색 조건
+* 조건 조합(shape)이 같으면 JPQL도 같기 때문에, 조합마다 쿼리를 한 번만 만들어 두고
+* 이후 요청에서는 파라미터만 바인딩한다. (OrderRepository.findAll 참고) */
+enum OrderSearchCondition {
+    ORDER_STATUS("o.status = :orderStatus") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return search.getOrderStatus() != null;
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            query.setParameter("orderStatus", search.getOrderStatus());
+        }
+    },
+    /* 앞부분 일치 검색 - '%이름%'은 member.name 인덱스를 사용할 수 없다.
+    * 입력한 %, _ 가 와일드카드로 동작하지 않도록 escape 한다. (likePrefix) */
+    MEMBER_NAME("m.name like :memberName escape '\\'") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return StringUtils.hasText(search.getMemberName());
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            query.setParameter("memberName", likePrefix(search.getMemberName()));
+        }
+    },
+    ORDER_DATE_FROM("o.orderDate >= :orderDateFrom") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return search.getOrderDateFrom() != null;
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            query.setParameter("orderDateFrom", search.getOrderDateFrom().atStartOfDay());
+        }
+    },
+    ORDER_DATE_TO("o.orderDate < :orderDateTo") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return search.getOrderDateTo() != null;
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            query.setParameter("orderDateTo", search.getOrderDateTo().plusDays(1).atStartOfDay());
+        }
+    },
+    /* join을 하면 주문상품 수 만큼 주문이 중복되므로 exists로 확인한다. */
+    ITEM_NAME("exists (select oi.id from OrderItem oi join oi.item i" +
+            " where oi.order = o and i.name like :itemName escape '\\')") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return StringUtils.hasText(search.getItemName());
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            query.setParameter("itemName", likePrefix(search.getItemName()));
+        }
+    },
+    /* 키셋 페이징 - 최신순 정렬이므로 커서보다 이전의 주문을 조회한다. */
+    AFTER("o.orderDate <= :afterOrderDate" +
+            " and (o.orderDate < :afterOrderDate or o.id < :afterOrderId)") {
+        @Override
+        boolean isPresent(OrderSearch search) {
+            return StringUtils.hasText(search.getAfter());
+        }
+
+        @Override
+        void bind(Query query, OrderSearch search) {
+            OrderCursor cursor = OrderCursor.decode(search.getAfter());
+            query.setParameter("afterOrderDate", cursor.orderDate())
+                    .setParameter("afterOrderId", cursor.orderId());
+        }
+    };
+
+    private final String predicate;
+
+    OrderSearchCondition(String predicate) {
+        this.predicate = predicate;
+    }
+
+    abstract boolean isPresent(OrderSearch search);
+
+    /* 앞부분 일치 like 패턴 - 입력값의 \, %, _ 는 escape 해서 문자 그대로 비교한다. */
+    static String likePrefix(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    abstract void bind(Query query, OrderSearch search);
+
+    static EnumSet<OrderSearchCondition> of(OrderSearch search) {
+        EnumSet<OrderSearchCondition> conditions = EnumSet.noneOf(OrderSearchCondition.class);
+        for (OrderSearchCondition condition : values()) {
+            if (condition.isPresent(search)) {
+                conditions.add(condition);
+            }
+        }
+        return conditions;
+    }
+
+    /* 조건 조합을 비트로 표현한 값, 쿼리 캐시의 키로 사용한다. */
+    static int shapeOf(EnumSet<OrderSearchCondition> conditions) {
+        int shape = 0;
+        for (OrderSearchCondition condition : conditions) {
+            shape |= 1 << condition.ordinal();
+        }
+        return shape;
+    }
+
+    static String toJpql(EnumSet<OrderSearchCondition> conditions) {
+        StringBuilder jpql = new StringBuilder("select o from Order o join fetch o.member m");
+        String prefix = " where ";
+        for (OrderSearchCondition condition : conditions) {
+            jpql.append(prefix).append(condition.predicate);
+            prefix = " and ";
+        }
+        return jpql.append(" order by o.orderDate desc, o.id desc").toString();
+    }
+}
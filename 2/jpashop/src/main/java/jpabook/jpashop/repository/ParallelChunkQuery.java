@@ -0,0 +1,152 @@
+package jpabook.jpashop.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/* 아이디 목록을 chunkSize 개씩 나눠서 in 쿼리를 동시에 실행한다.
+* 청크마다 스레드풀의 스레드에서 읽기 전용 트랜잭션을 새로 열기 때문에
+* 청크마다 EntityManager(영속성 컨텍스트)와 커넥션이 따로 있다.
+* 청크 수가 많아도 전체 시간은 가장 오래 걸린 청크에 가까워진다. (순서대로 실행하면 모든 청크의 합)
+* - 조회 결과는 청크 순서대로 합쳐서 반환한다.
+* - 청크 트랜잭션이 끝나면 영속성 컨텍스트도 닫히므로 DTO로 조회한다.
+* - 청크가 하나뿐이면 호출한 스레드에서 바로 실행한다.
+*
+* 커넥션 풀 - 호출한 스레드는 자기 커넥션(트랜잭션, OSIV)을 잡은 채로 청크를 기다린다.
+* 기다리는 호출자가 풀을 모두 차지하면 청크 스레드가 커넥션을 얻지 못해 서로 기다리게 되므로
+* - parallelism은 커넥션 풀 크기보다 작아야 한다. (시작할 때 확인)
+* - 동시에 청크를 나눠 실행하는 호출자는 (풀 크기 - parallelism) 명까지만 허용하고,
+*   넘치는 호출자는 청크 스레드를 쓰지 않고 자기 커넥션에서 청크를 순서대로 조회한다.
+* - 청크를 기다리는 시간은 timeout 까지로 제한한다. (넘으면 QueryTimeoutException) */
+@Component
+public class ParallelChunkQuery {
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final Duration timeout;
+    /* 청크를 나눠 실행하면서 커넥션을 잡고 기다릴 수 있는 호출자 수 - 풀 크기를 알 수 없으면 null (제한 없음) */
+    private final Semaphore callers;
+
+    public ParallelChunkQuery(PlatformTransactionManager transactionManager, DataSource dataSource
+            , @Value("${jpashop.order.query.chunk-size:1024}") int chunkSize
+            , @Value("${jpashop.order.query.parallelism:4}") int parallelism
+            , @Value("${jpashop.order.query.timeout:10s}") Duration timeout) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.timeout = timeout;
+
+        int threads = Math.max(1, parallelism);
+        if(dataSource instanceof HikariDataSource hikari){
+            int poolSize = hikari.getMaximumPoolSize();
+            if(threads >= poolSize){
+                throw new IllegalStateException("parallelism은 커넥션 풀 크기보다 작아야 합니다. parallelism=" + threads + ", maximum-pool-size=" + poolSize);
+            }
+            this.callers = new Semaphore(poolSize - threads);
+        }else{
+            this.callers = null;
+        }
+
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "chunk-query-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /* query는 청크(아이디 목록) 하나를 조회하는 함수 - 여러 스레드에서 동시에 호출된다. */
+    public <T> List<T> findAll(List<Long> ids, Function<List<Long>, List<T>> query){
+        if(ids.size() <= chunkSize){
+            return ids.isEmpty() ? new ArrayList<>() : query.apply(ids);
+        }
+        if(callers == null){
+            return fanOut(ids, query);
+        }
+        if(!callers.tryAcquire()){
+            return sequential(ids, query);
+        }
+        try {
+            return fanOut(ids, query);
+        } finally {
+            callers.release();
+        }
+    }
+
+    private <T> List<T> fanOut(List<Long> ids, Function<List<Long>, List<T>> query){
+        List<Future<List<T>>> futures = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            futures.add(executor.submit(() -> readOnlyTransaction.execute(status -> query.apply(chunk))));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<T> result = new ArrayList<>();
+        try {
+            for (Future<List<T>> future : futures) {
+                result.addAll(await(future, deadline));
+            }
+        } finally {
+            /* 실패하면 아직 실행되지 않은 청크는 취소한다. */
+            futures.forEach(future -> future.cancel(true));
+        }
+        return result;
+    }
+
+    /* 청크 스레드를 쓸 수 없으면 호출한 스레드의 커넥션에서 순서대로 조회한다. */
+    private <T> List<T> sequential(List<Long> ids, Function<List<Long>, List<T>> query){
+        List<T> result = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            result.addAll(query.apply(chunk));
+        }
+        return result;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids){
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(List.copyOf(ids.subList(from, Math.min(ids.size(), from + chunkSize))));
+        }
+        return chunks;
+    }
+
+    private static <T> T await(Future<T> future, long deadline){
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("청크 조회가 제한 시간 안에 끝나지 않았습니다.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("청크 조회가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw new IllegalStateException("청크 조회에 실패했습니다.", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+}
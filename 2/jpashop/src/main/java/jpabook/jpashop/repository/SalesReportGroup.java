@@ -0,0 +1,24 @@
+package jpabook.jpashop.repository;
+
+/* 매출 조회시 묶는 기준 - 주문상태는 항상 구분한다. */
+public enum SalesReportGroup {
+    DAY_ITEM(true, true),//일자 + 상품
+    DAY(true, false),//일자별 합계
+    ITEM(false, true);//기간 내 상품별 합계
+
+    private final boolean byDate;
+    private final boolean byItem;
+
+    SalesReportGroup(boolean byDate, boolean byItem) {
+        this.byDate = byDate;
+        this.byItem = byItem;
+    }
+
+    public boolean byDate() {
+        return byDate;
+    }
+
+    public boolean byItem() {
+        return byItem;
+    }
+}
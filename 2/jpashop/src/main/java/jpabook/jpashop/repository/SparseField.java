@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/* ?fields= 부분 조회(sparse fieldset)
+* 요청한 필드의 컬럼만 select 해서 Tuple로 조회하고, 엔티티나 DTO를 만들지 않고 Tuple을 그대로 직렬화한다. (TupleSerializer)
+* 필드는 enum(MemberField, OrderField)에 등록된 것만 허용하므로 요청 값이 JPQL에 그대로 들어가지 않는다. */
+public interface SparseField {
+    /* 응답 필드 이름 = select 별칭 */
+    String param();
+
+    /* JPQL 경로 */
+    String path();
+
+    /* "name,orderStatus" -> 요청 순서대로, 중복 제거 (비어 있으면 전체) */
+    static <F extends Enum<F> & SparseField> List<F> parse(Class<F> type, String fields) {
+        F[] values = type.getEnumConstants();
+        if (!StringUtils.hasText(fields)) {
+            return List.of(values);
+        }
+
+        Set<F> result = new LinkedHashSet<>();
+        for (String token : fields.split(",")) {
+            String name = token.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            result.add(of(values, name));
+        }
+        return result.isEmpty() ? List.of(values) : new ArrayList<>(result);
+    }
+
+    private static <F extends SparseField> F of(F[] values, String param) {
+        for (F value : values) {
+            if (value.param().equals(param)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("지원하지 않는 필드입니다. field=" + param + " ("
+                + Arrays.stream(values).map(SparseField::param).collect(Collectors.joining(", ")) + ")");
+    }
+
+    /* select m.name as name, m.address.city as city */
+    static String select(List<? extends SparseField> fields) {
+        return fields.stream()
+                .map(field -> field.path() + " as " + field.param())
+                .collect(Collectors.joining(", ", "select ", ""));
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/* 요청 범위 ToOne 배치 로더
+* DTO로 변환하기 전에 읽을 연관관계(프록시)를 register()로 등록하고 load()를 호출하면
+* 초기화되지 않은 프록시의 아이디를 엔티티 타입별로 모아서 타입마다 multiLoad(byMultipleIds) 한번으로 조회한다.
+* 조회된 엔티티는 영속성 컨텍스트에 올라가기 때문에 이후 프록시를 읽어도 쿼리가 실행되지 않는다.
+* - default_batch_fetch_size는 모든 요청에 같은 크기로 적용되지만, 여기서는 요청에서 실제로 모은 아이디 수로 조회한다.
+*   (BatchLookup.MAX_BUCKET_SIZE 보다 많으면 나눠서 조회)
+* - 요청마다 빈이 따로 만들어지므로 다른 요청의 아이디와 섞이지 않는다.
+* - 영속성 컨텍스트가 열려 있어야 한다. (트랜잭션 또는 OSIV) */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class ToOneBatchLoader {
+    private final EntityManager em;
+
+    /* 엔티티 타입 -> 아직 조회하지 않은 아이디 */
+    private final Map<Class<?>, Set<Object>> pending = new LinkedHashMap<>();
+
+    /* 초기화되지 않은 프록시면 아이디를 모아둔다. (이미 초기화된 엔티티, null은 무시) */
+    public <T> T register(T association) {
+        LazyInitializer initializer = HibernateProxy.extractLazyInitializer(association);
+        if (initializer != null && initializer.isUninitialized()) {
+            pending.computeIfAbsent(initializer.getPersistentClass(), type -> new LinkedHashSet<>())
+                    .add(initializer.getIdentifier());
+        }
+        return association;
+    }
+
+    /* 모아둔 아이디를 엔티티 타입마다 한번에 조회한다. */
+    public void load() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Session session = em.unwrap(Session.class);
+        pending.forEach((type, ids) -> session.byMultipleIds(type)
+                .withBatchSize(Math.min(ids.size(), BatchLookup.MAX_BUCKET_SIZE))
+                .multiLoad(new ArrayList<>(ids)));
+        pending.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/* order_id 순으로 정렬된 OrderFlatDto를 한 row씩 받아 OrderQueryDto로 조립한다.
+* 주문이 바뀌는 시점에 완성된 OrderQueryDto를 downstream으로 넘기기 때문에
+* 전체 결과를 메모리에 올리지 않고도 주문 단위로 처리할 수 있다. */
+public class OrderFlatAssembler {
+    private final Consumer<OrderQueryDto> downstream;
+    private OrderQueryDto current;
+
+    public OrderFlatAssembler(Consumer<OrderQueryDto> downstream) {
+        this.downstream = downstream;
+    }
+
+    /* 정렬된 row를 한번 훑어서 주문 순서 그대로 조립한다. (주문당 OrderQueryDto 하나, row당 OrderItemQueryDto 하나) */
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> flats) {
+        List<OrderQueryDto> orders = new ArrayList<>();
+        OrderFlatAssembler assembler = new OrderFlatAssembler(orders::add);
+        flats.forEach(assembler::accept);
+        assembler.finish();
+        return orders;
+    }
+
+    public void accept(OrderFlatDto flat) {
+        if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+            emit();
+            current = new OrderQueryDto(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress(), new ArrayList<>());
+        }
+        /* 주문상품이 없는 주문은 주문상품 컬럼이 null인 row 하나로 조회된다. (left join) */
+        if (flat.hasOrderItem()) {
+            current.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+        }
+    }
+
+    /* 마지막 주문은 다음 주문이 나오지 않으므로 직접 넘겨준다. */
+    public void finish() {
+        emit();
+    }
+
+    private void emit() {
+        if (current != null) {
+            downstream.accept(current);
+            current = null;
+        }
+    }
+}
@@ -14,11 +14,12 @@ public class OrderFlatDto {
     private OrderStatus orderStatus;
     private Address address;
 
+    /* 주문상품 - 주문상품이 없는 주문(left join)은 모두 null */
     private String itemName;
-    private int orderPrice;
-    private int count;
+    private Integer orderPrice;
+    private Integer count;
 
-    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, String itemName, int orderPrice, int count) {
+    public OrderFlatDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address, String itemName, Integer orderPrice, Integer count) {
         this.orderId = orderId;
         this.name = name;
         this.orderDate = orderDate;
@@ -28,4 +29,8 @@ public class OrderFlatDto {
         this.orderPrice = orderPrice;
         this.count = count;
     }
+
+    public boolean hasOrderItem() {
+        return count != null;
+    }
 }
@@ -1,12 +1,16 @@
 package jpabook.jpashop.repository.order.query;
 
 import jakarta.persistence.EntityManager;
+import jpabook.jpashop.repository.BatchLookup;
+import jpabook.jpashop.repository.ParallelChunkQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 
@@ -14,6 +18,7 @@ import static java.util.stream.Collectors.toList;
 @RequiredArgsConstructor
 public class OrderQueryRepository {
     private final EntityManager em;
+    private final ParallelChunkQuery parallelChunkQuery;
 
     public List<OrderQueryDto> findOrderQueryDtos(){
         List<OrderQueryDto> result = findOrdes();
@@ -31,9 +36,9 @@ public class OrderQueryRepository {
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(" +
                         "oi.order.id, i.name, oi.orderPrice, oi.count" +
                         ")" +
-                        "from OrderItem oi" +
-                        "join oi.item i" +
-                        "where oi.order.id = :orderId"
+                        " from OrderItem oi" +
+                        " join oi.item i" +
+                        " where oi.order.id = :orderId"
                 , OrderItemQueryDto.class
         )
                 .setParameter("orderId", orderId)
@@ -45,9 +50,9 @@ public class OrderQueryRepository {
                 "select new jpabook.jpashop.repository.order.query.OrderQueryDto(" +
                         "o.id, m.name, o.orderDate, o.status, d.address" +
                         ")"+
-                        "from Order o"+
-                        "join o.member m"+
-                        "join o.delivery d"
+                        " from Order o"+
+                        " join o.member m"+
+                        " join o.delivery d"
                 , OrderQueryDto.class
         ).getResultList();
     }
@@ -59,17 +64,7 @@ public class OrderQueryRepository {
                 .map(o -> o.getOrderId())
                 .collect(Collectors.toList());
 
-        List<OrderItemQueryDto> orderItems = em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(" +
-                                "oi.order.id, i.name, oi.orderPrice, oi.count" +
-                                ")" +
-                                "from OrderItem oi" +
-                                "join oi.item i" +
-                                "where oi.order.id in :orderIds"
-                        , OrderItemQueryDto.class
-                )
-                .setParameter("orderIds", orderIds)
-                .getResultList();
+        List<OrderItemQueryDto> orderItems = findOrderItems(orderIds);
 
         /* Map로 변경 */
        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
@@ -82,16 +77,96 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /* v5 + 주문상품 청크 병렬 조회
+    * 주문 아이디를 청크로 나눠 청크마다 별도 커넥션에서 in 쿼리를 동시에 실행한다. (ParallelChunkQuery)
+    * 주문이 많은 경우 in 쿼리를 순서대로 실행하는 시간(청크 합) 대신 가장 느린 청크의 시간만큼 걸린다. */
+    public List<OrderQueryDto> findAlBylDto_parallel() {
+        List<OrderQueryDto> result = findOrdes();
+
+        List<Long> orderIds = result.stream()
+                .map(OrderQueryDto::getOrderId)
+                .toList();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = parallelChunkQuery.findAll(orderIds, this::findOrderItems).stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+
+        return result;
+    }
+
+    /* 주문 수와 상관없이 버킷 크기의 in 쿼리로 나눠서 조회한다. (BatchLookup) */
+    private List<OrderItemQueryDto> findOrderItems(List<Long> orderIds) {
+        return BatchLookup.findAll(orderIds, chunk -> em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(" +
+                                "oi.order.id, i.name, oi.orderPrice, oi.count" +
+                                ")" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds"
+                        , OrderItemQueryDto.class
+                )
+                .setParameter("orderIds", chunk)
+                .getResultList());
+    }
+
+    /* 같은 주문의 row가 연속으로 나오도록 order_id 순으로 정렬한다. (OrderFlatAssembler 참고)
+    * 주문상품이 없는 주문도 빠지지 않도록 주문상품, 상품은 left join 한다. */
     public List<OrderFlatDto> findAlBylDto_flat() {
         return em.createQuery("select new" +
-                        "jpbook.jpashop.repository.order.query.OrderFlatDto(" +
+                        " jpabook.jpashop.repository.order.query.OrderFlatDto(" +
                         "o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count" +
                         ")" +
-                        "from Order o" +
-                        "join o.member m" +
-                        "join o.delivery d" +
-                        "join o.orderItems oi" +
-                        "join oi.item i"
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " left join o.orderItems oi" +
+                        " left join oi.item i" +
+                        " order by o.id, oi.id"
                 , OrderFlatDto.class).getResultList();
     }
+
+    /* 플랫 조회 + 페이징
+    * 주문상품과 조인한 row에 offset/limit를 걸면 주문 중간에서 잘리기 때문에,
+    * 주문 아이디만 먼저 자르는 서브쿼리(derived table)와 조인해서 주문 단위로 페이징한다.
+    * 주문 offset ~ offset + limit 건의 주문상품까지 쿼리 한번으로 조회하고, order_id 순으로 정렬한다.
+    * 주문상품이 없는 주문이 빠져서 페이지가 limit 보다 짧아지지 않도록 주문상품, 상품은 left join 한다. */
+    public List<OrderFlatDto> findAlBylDto_flat(int offset, int limit) {
+        return em.createQuery("select new" +
+                        " jpabook.jpashop.repository.order.query.OrderFlatDto(" +
+                        "o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count" +
+                        ")" +
+                        " from (select p.id as id from Order p order by p.id limit :limit offset :offset) page" +
+                        " join Order o on o.id = page.id" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " left join o.orderItems oi" +
+                        " left join oi.item i" +
+                        " order by o.id, oi.id"
+                , OrderFlatDto.class)
+                .setParameter("offset", offset)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+
+    /* export 용 - 결과를 List로 만들지 않고 JDBC 커서에서 fetchSize 만큼씩 읽는다.
+    * 같은 주문의 row가 연속으로 나오도록 order_id 순으로 정렬한다. (OrderFlatAssembler 참고)
+    * 주문상품이 없는 주문도 빠지지 않도록 주문상품, 상품은 left join 한다. (주문상품 컬럼이 null인 row 하나)
+    * 반환된 Stream은 커넥션을 잡고 있으므로 트랜잭션 안에서 사용하고 반드시 close 해야한다. */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(" +
+                        "o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count" +
+                        ")" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " left join o.orderItems oi" +
+                        " left join oi.item i" +
+                        " order by o.id, oi.id"
+                , OrderFlatDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
 }
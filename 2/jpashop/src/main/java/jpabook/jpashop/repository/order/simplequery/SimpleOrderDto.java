@@ -14,6 +14,8 @@ public class SimpleOrderDto{
     private LocalDateTime orderDate;
     private OrderStatus orderStatus;
     private Address address;
+    private int totalPrice;
+    private int itemCount;
 
     //쿼리 new문을 작성한경우 아래와 같이 작성해야한다.
     //public SimpleOrderDto(Long orderId, String name, LocalDateTime orderDate, OrderStatus orderStatus, Address address){
@@ -25,5 +27,7 @@ public class SimpleOrderDto{
         orderDate = order.getOrderDate();
         orderStatus = order.getStatus();
         address = order.getDelivery().getAddress();
+        totalPrice = order.getTotalPrice();
+        itemCount = order.getItemCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package jpabook.jpashop.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/* @RetryOnOptimisticLock 처리
+* 트랜잭션 AOP(LOWEST_PRECEDENCE)보다 바깥에서 실행되어야 재시도마다 트랜잭션이 새로 시작되므로 그보다 한 단계 높은 우선순위로 둔다.
+* HIGHEST_PRECEDENCE로 두면 ExposeInvocationInterceptor보다 먼저 실행되어 @annotation(retry) 인자를 바인딩하지 못한다.
+*
+* 메서드별 지표 (method 태그 = 클래스명.메서드명)
+* - jpashop.optimistic-lock.calls     : 호출 수
+* - jpashop.optimistic-lock.conflicts : 충돌 수 (충돌률 = conflicts / calls)
+* - jpashop.optimistic-lock.exhausted : 재시도를 모두 실패한 수 */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class OptimisticLockRetryAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        counter("calls", method).increment();
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return proceedOnce(joinPoint, method);
+        }
+
+        int maxAttempts = Math.max(1, retry.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                counter("conflicts", method).increment();
+                if (attempt >= maxAttempts) {
+                    counter("exhausted", method).increment();
+                    log.warn(">>> [optimistic-lock] {} {}회 재시도 실패", method, attempt);
+                    throw e;
+                }
+                long backoff = backoff(retry, attempt);
+                log.debug(">>> [optimistic-lock] {} 충돌, {}ms 후 재시도 ({}/{})", method, backoff, attempt, maxAttempts);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    /* 바깥 트랜잭션에 참여한 경우 - 충돌만 기록하고 예외는 그대로 던진다. */
+    private Object proceedOnce(ProceedingJoinPoint joinPoint, String method) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException e) {
+            if (isOptimisticLockFailure(e)) {
+                counter("conflicts", method).increment();
+            }
+            throw e;
+        }
+    }
+
+    /* full jitter - 동시에 충돌한 요청들이 같은 시점에 다시 충돌하지 않도록 대기시간을 흩어 놓는다. */
+    private static long backoff(RetryOnOptimisticLock retry, int attempt) {
+        long ceiling = Math.min(retry.maxBackoffMillis(), retry.backoffMillis() << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Counter counter(String name, String method) {
+        return Counter.builder("jpashop.optimistic-lock." + name)
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.retry;
+
+import java.lang.annotation.*;
+
+/* 낙관적 락 충돌(@Version)시 메서드를 다시 실행한다. (OptimisticLockRetryAspect)
+* @Transactional 메서드에 같이 사용하면 재시도마다 새 트랜잭션으로 실행된다.
+* 이미 트랜잭션 안에서 호출된 경우에는 바깥 트랜잭션이 롤백되어야 하므로 재시도하지 않는다. */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnOptimisticLock {
+    /* 최초 실행을 포함한 최대 실행 횟수 */
+    int maxAttempts() default 3;
+
+    /* 재시도 대기시간 - 0 ~ backoffMillis * 2^(재시도 횟수 - 1) 사이의 임의의 값 (최대 maxBackoffMillis) */
+    long backoffMillis() default 20;
+
+    long maxBackoffMillis() default 200;
+}
@@ -0,0 +1,279 @@
+package jpabook.jpashop.seeder;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.SalesReportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* 부하 테스트용 대용량 데이터 생성 - seed 프로필에서만 동작한다. (InitDb 대신 실행)
+* java -jar jpashop.jar --spring.profiles.active=seed --jpashop.seed.orders=1000000 --jpashop.seed.exit-on-finish=true
+*
+* - 엔티티를 persist 하지 않고 JdbcTemplate batchUpdate로 직접 넣는다.
+* - 아이디는 IdBlockAllocator로 각 엔티티의 시퀀스에서 블록 단위로 예약한다.
+* - batchSize 건을 하나의 청크(트랜잭션)로 만들어 threads 개의 스레드가 나눠서 넣는다.
+* - 상품 인기도는 Zipf 분포를 따른다. (소수의 상품에 주문이 몰린다)
+* - 청크마다 randomSeed + 청크 번호로 난수를 만들기 때문에 스레드 수와 상관없이 같은 데이터가 만들어진다.
+* 상품 -> 카테고리 -> 회원 -> 주문(배송, 주문상품) 순서로 넣고, 테이블마다 초당 row 수를 로그로 남긴다. */
+@Slf4j
+@Component
+@Profile("seed")
+@EnableConfigurationProperties(SeedProperties.class)
+public class DataSeeder implements ApplicationRunner {
+    private static final String[] ITEM_TYPES = {"B", "A", "M"};//Book, Album, Movie
+
+    private final SeedProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory emf;
+    private final ConfigurableApplicationContext context;
+    private final SalesReportService salesReportService;
+
+    public DataSeeder(SeedProperties properties, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      EntityManagerFactory emf, ConfigurableApplicationContext context, SalesReportService salesReportService) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.emf = emf;
+        this.context = context;
+        this.salesReportService = salesReportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long rows = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()));
+        try {
+            long[] categoryIds = reserve(Category.class, properties.getCategories());
+            rows += seedCategories(categoryIds);
+
+            long[] itemIds = reserve(Item.class, properties.getItems());
+            int[] prices = new int[itemIds.length];
+            rows += seedItems(executor, itemIds, prices, categoryIds);
+
+            long[] memberIds = reserve(Member.class, properties.getMembers());
+            rows += seedMembers(executor, memberIds);
+
+            rows += seedOrders(executor, memberIds, itemIds, prices);
+        } finally {
+            executor.shutdown();
+        }
+
+        /* 주문을 JDBC로 넣었기 때문에 매출 집계는 원본 주문에서 다시 만든다. */
+        rows += salesReportService.rebuild(null, null).rows();
+
+        report("total", rows, started);
+
+        if (properties.isExitOnFinish()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /* 루트 카테고리 10%, 나머지는 루트 중 하나의 자식으로 만든다. 건수가 적어서 한번에 넣는다.
+    * path는 Category.path 형식(조상 아이디 경로)을 따른다. */
+    private long seedCategories(long[] categoryIds) {
+        long started = System.nanoTime();
+        int roots = Math.max(1, categoryIds.length / 10);
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>(categoryIds.length);
+        for (int i = 0; i < categoryIds.length; i++) {
+            Long parentId = i < roots ? null : categoryIds[random.nextInt(roots)];
+            String path = parentId == null ? Category.ROOT_PATH : Category.ROOT_PATH + parentId + "/";
+            rows.add(new Object[]{categoryIds[i], "category-" + i, parentId, path, now});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "insert into category (category_id, name, parent_id, path, created_at) values (?, ?, ?, ?, ?)", rows));
+
+        report("category", rows.size(), started);
+        return rows.size();
+    }
+
+    /* 상품 타입은 Book/Album/Movie 를 돌아가며 만들고, 상품마다 카테고리 하나에 연결한다. */
+    private long seedItems(ExecutorService executor, long[] itemIds, int[] prices, long[] categoryIds) {
+        return inChunks("item", executor, itemIds.length, (random, from, to) -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> items = new ArrayList<>(to - from);
+            List<Object[]> categoryItems = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                String type = ITEM_TYPES[i % ITEM_TYPES.length];
+                prices[i] = (1 + random.nextInt(100)) * 1_000;
+                items.add(new Object[]{type, itemIds[i], type + "-ITEM-" + i, prices[i], 1_000_000,
+                        type.equals("B") ? "author-" + i : null, type.equals("B") ? "isbn-" + i : null,
+                        type.equals("A") ? "artist-" + i : null, null,
+                        type.equals("M") ? "director-" + i : null, type.equals("M") ? "actor-" + i : null,
+                        now});
+                if (categoryIds.length > 0) {
+                    categoryItems.add(new Object[]{categoryIds[random.nextInt(categoryIds.length)], itemIds[i]});
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into item (dtype, item_id, name, price, stock_quantity, sharded_stock, version," +
+                    " author, isbn, artist, etc, director, actor, created_at)" +
+                    " values (?, ?, ?, ?, ?, false, 0, ?, ?, ?, ?, ?, ?, ?)", items);
+            jdbcTemplate.batchUpdate("insert into category_item (category_id, item_id) values (?, ?)", categoryItems);
+            return items.size() + categoryItems.size();
+        });
+    }
+
+    private long seedMembers(ExecutorService executor, long[] memberIds) {
+        return inChunks("member", executor, memberIds.length, (random, from, to) -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> members = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                members.add(new Object[]{memberIds[i], "member-" + memberIds[i],
+                        "city-" + random.nextInt(100), "street-" + i, String.format("%05d", random.nextInt(100_000)), now});
+            }
+            jdbcTemplate.batchUpdate("insert into member (member_id, name, city, street, zipcode, created_at)" +
+                    " values (?, ?, ?, ?, ?, ?)", members);
+            return members.size();
+        });
+    }
+
+    /* 회원은 균등하게, 상품은 Zipf 분포로 고른다. 주문의 10%는 취소 상태로 만든다.
+    * 인기 순위와 아이디 순서가 같지 않도록 순위 -> 상품 매핑을 섞어둔다. */
+    private long seedOrders(ExecutorService executor, long[] memberIds, long[] itemIds, int[] prices) {
+        if (memberIds.length == 0 || itemIds.length == 0) {
+            return 0;
+        }
+        ZipfSampler popularity = new ZipfSampler(itemIds.length, properties.getZipfExponent());
+        int[] rankToItem = shuffledIndexes(itemIds.length, new SplittableRandom(properties.getRandomSeed()));
+        IdBlockAllocator deliveryIds = new IdBlockAllocator(jdbcTemplate, emf, Delivery.class);
+        IdBlockAllocator orderIds = new IdBlockAllocator(jdbcTemplate, emf, Order.class);
+        IdBlockAllocator orderItemIds = new IdBlockAllocator(jdbcTemplate, emf, OrderItem.class);
+        LocalDateTime now = LocalDateTime.now();
+        int maxItemsPerOrder = Math.max(1, properties.getMaxItemsPerOrder());
+        long orderMinutes = Math.max(1, properties.getOrderDays()) * 24L * 60L;
+
+        return inChunks("order", executor, properties.getOrders(), (random, from, to) -> {
+            int size = to - from;
+            long[] chunkOrderIds = orderIds.reserve(size);
+            long[] chunkDeliveryIds = deliveryIds.reserve(size);
+            int[] lines = new int[size];
+            int lineCount = 0;
+            for (int i = 0; i < size; i++) {
+                lines[i] = 1 + random.nextInt(maxItemsPerOrder);
+                lineCount += lines[i];
+            }
+            long[] chunkOrderItemIds = orderItemIds.reserve(lineCount);
+
+            List<Object[]> deliveries = new ArrayList<>(size);
+            List<Object[]> orders = new ArrayList<>(size);
+            List<Object[]> orderItems = new ArrayList<>(lineCount);
+            int line = 0;
+            for (int i = 0; i < size; i++) {
+                boolean canceled = random.nextInt(10) == 0;
+                Timestamp orderDate = Timestamp.valueOf(now.minusMinutes(random.nextLong(orderMinutes)));
+
+                deliveries.add(new Object[]{chunkDeliveryIds[i], "city-" + random.nextInt(100), "street-" + (from + i),
+                        String.format("%05d", random.nextInt(100_000)), canceled ? "READY" : "COMP", orderDate});
+                long memberId = memberIds[random.nextInt(memberIds.length)];
+                int totalPrice = 0;
+                for (int j = 0; j < lines[i]; j++) {
+                    int item = rankToItem[popularity.sample(random)];
+                    int count = 1 + random.nextInt(3);
+                    totalPrice += prices[item] * count;
+                    orderItems.add(new Object[]{chunkOrderItemIds[line++], itemIds[item], chunkOrderIds[i],
+                            prices[item], count, orderDate});
+                }
+                orders.add(new Object[]{chunkOrderIds[i], memberId, chunkDeliveryIds[i],
+                        canceled ? "CANCEL" : "ORDER", orderDate, totalPrice, lines[i], orderDate});
+            }
+            jdbcTemplate.batchUpdate("insert into delivery (delivery_id, city, street, zipcode, status, created_at, version)" +
+                    " values (?, ?, ?, ?, ?, ?, 0)", deliveries);
+            jdbcTemplate.batchUpdate("insert into ordes (order_id, member_id, delivery_id, status, order_date, total_price, item_count, created_at, version)" +
+                    " values (?, ?, ?, ?, ?, ?, ?, ?, 0)", orders);
+            jdbcTemplate.batchUpdate("insert into order_item (order_item_id, item_id, order_id, order_price, count, created_at)" +
+                    " values (?, ?, ?, ?, ?, ?)", orderItems);
+            return deliveries.size() + orders.size() + orderItems.size();
+        });
+    }
+
+    /* total 건을 batchSize 청크로 나눠 스레드풀에서 청크마다 트랜잭션 하나로 실행한다. */
+    private long inChunks(String name, ExecutorService executor, int total, ChunkWriter writer) {
+        long started = System.nanoTime();
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int from = 0; from < total; from += batchSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(total, from + batchSize);
+            SplittableRandom random = new SplittableRandom(properties.getRandomSeed() * 31 + name.hashCode() + chunkFrom);
+            futures.add(executor.submit(() ->
+                    transactionTemplate.execute(status -> writer.write(random, chunkFrom, chunkTo))));
+        }
+
+        long rows = 0;
+        for (Future<Integer> future : futures) {
+            rows += await(future);
+        }
+        report(name, rows, started);
+        return rows;
+    }
+
+    private long[] reserve(Class<?> entityClass, int count) {
+        return new IdBlockAllocator(jdbcTemplate, emf, entityClass).reserve(count);
+    }
+
+    private static int[] shuffledIndexes(int n, SplittableRandom random) {
+        int[] indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = tmp;
+        }
+        return indexes;
+    }
+
+    private static int await(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("데이터 생성에 실패했습니다.", e.getCause());
+        }
+    }
+
+    private static void report(String name, long rows, long startedNanos) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedNanos) / 1_000_000);
+        log.info("[seed] {} : {} rows, {} ms, {} rows/s", name, rows, elapsedMillis, rows * 1000 / elapsedMillis);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        /* [from, to) 구간의 데이터를 넣고 넣은 row 수를 반환한다. */
+        int write(SplittableRandom random, int from, int to);
+    }
+}
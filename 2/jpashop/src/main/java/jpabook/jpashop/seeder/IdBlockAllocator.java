@@ -0,0 +1,57 @@
+package jpabook.jpashop.seeder;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/* 엔티티의 @GeneratedValue 시퀀스에서 아이디 블록을 미리 예약한다.
+* 하이버네이트 pooled 옵티마이저와 같은 규칙을 사용한다 - nextval 값이 v이면 [v - increment + 1, v] 를 사용
+* 그래서 JDBC로 직접 넣은 데이터와 이후 애플리케이션이 persist 하는 엔티티의 아이디가 겹치지 않는다.
+* 시퀀스 호출은 increment(allocationSize, 기본 50) 건당 한번이다. */
+final class IdBlockAllocator {
+    private final JdbcTemplate jdbc;
+    private final String nextValSql;
+    private final int incrementSize;
+
+    IdBlockAllocator(JdbcTemplate jdbc, EntityManagerFactory emf, Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        Generator generator = sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(entityClass)
+                .getGenerator();
+        if (!(generator instanceof SequenceStyleGenerator sequenceGenerator)) {
+            throw new IllegalStateException(entityClass.getSimpleName() + "의 아이디가 시퀀스로 생성되지 않습니다. generator=" + generator);
+        }
+
+        /* 하이버네이트가 DDL, nextval에 사용하는 것과 같은 이름 (default_schema, default_catalog 포함) */
+        DatabaseStructure structure = sequenceGenerator.getDatabaseStructure();
+        String sequenceName = sessionFactory.getSqlStringGenerationContext().format(structure.getPhysicalName());
+
+        this.jdbc = jdbc;
+        this.nextValSql = sessionFactory.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(sequenceName);
+        this.incrementSize = structure.getIncrementSize();
+    }
+
+    long[] reserve(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long hi = nextValue();
+            for (long id = hi - incrementSize + 1; id <= hi && filled < count; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /* 시퀀스의 첫 값(initial value)은 하이버네이트가 그 값부터 다음 블록까지 사용하므로 건너뛴다. */
+    private long nextValue() {
+        long value;
+        do {
+            value = jdbc.queryForObject(nextValSql, Long.class);
+        } while (value < incrementSize);
+        return value;
+    }
+}
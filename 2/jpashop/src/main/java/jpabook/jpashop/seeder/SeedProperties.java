@@ -0,0 +1,23 @@
+package jpabook.jpashop.seeder;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/* jpashop.seed.* - DataSeeder 설정
+* 예) --spring.profiles.active=seed --jpashop.seed.orders=5000000 --jpashop.seed.exit-on-finish=true */
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.seed")
+public class SeedProperties {
+    private int members = 100_000;
+    private int items = 10_000;
+    private int categories = 100;
+    private int orders = 1_000_000;
+    private int maxItemsPerOrder = 5;//주문 하나당 주문상품 1 ~ maxItemsPerOrder 건
+    private double zipfExponent = 1.0;//상품 인기도 편중 정도 (0이면 균등)
+    private int orderDays = 365;//주문일자를 최근 orderDays 일 안에서 분포시킨다.
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1_000;//JDBC batch 및 트랜잭션 단위
+    private long randomSeed = 42L;//같은 값이면 같은 데이터가 만들어진다.
+    private boolean exitOnFinish = false;//CLI로 실행시 데이터 생성 후 종료
+}
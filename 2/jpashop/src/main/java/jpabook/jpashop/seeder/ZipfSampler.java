@@ -0,0 +1,35 @@
+package jpabook.jpashop.seeder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/* Zipf 분포 - 순위 k(1 ~ n)가 뽑힐 확률이 1 / k^exponent 에 비례한다.
+* 누적분포(cdf)를 한번 만들어두고 균등 난수를 이진탐색해서 순위를 찾는다. (샘플 하나당 O(log n))
+* 생성 후에는 읽기만 하므로 여러 스레드에서 같이 사용해도 된다. */
+final class ZipfSampler {
+    private final double[] cdf;
+
+    ZipfSampler(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n은 1 이상이어야 합니다. n=" + n);
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    /* 0 ~ n-1 의 순위를 반환한다. 0이 가장 많이 뽑힌다. */
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cdf.length - 1);
+    }
+}
@@ -0,0 +1,5 @@
+package jpabook.jpashop.service;
+
+/* 카테고리 추가/변경 - 커밋 후 트리 스냅샷을 다시 만든다. (CategoryTreeCache) */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /* 카테고리 추가 - parentId가 null이면 루트 카테고리 */
+    @Transactional
+    public Long addCategory(String name, Long parentId){
+        Category category = new Category();
+        category.setName(name);
+        if(parentId != null){
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return category.getId();
+    }
+
+    /* 하위 카테고리 전체 (자신 제외) */
+    public List<Category> findDescendants(Long categoryId){
+        return categoryRepository.findDescendants(findCategory(categoryId));
+    }
+
+    /* 카테고리와 모든 하위 카테고리의 상품 */
+    public List<Item> findItemsInSubtree(Long categoryId){
+        return categoryRepository.findItemsInSubtree(findCategory(categoryId));
+    }
+
+    /* 전체 카테고리 트리 - DB를 조회하지 않는다. */
+    public CategoryTree getTree(){
+        return categoryTreeCache.get();
+    }
+
+    private Category findCategory(Long categoryId){
+        Category category = categoryRepository.findOne(categoryId);
+        if(category == null){
+            throw new IllegalArgumentException("카테고리가 없습니다. categoryId=" + categoryId);
+        }
+        return category;
+    }
+}
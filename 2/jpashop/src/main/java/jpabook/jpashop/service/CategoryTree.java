@@ -0,0 +1,80 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/* 카테고리 트리 스냅샷 - 생성 후 변경되지 않으므로 여러 스레드가 락 없이 읽는다.
+* 카테고리가 바뀌면 수정하지 않고 새로 만들어서 교체한다. (CategoryTreeCache) */
+public final class CategoryTree {
+    public static final CategoryTree EMPTY = new CategoryTree(List.of(), Map.of());
+
+    private final List<Node> roots;
+    private final Map<Long, Node> nodes;
+
+    private CategoryTree(List<Node> roots, Map<Long, Node> nodes) {
+        this.roots = roots;
+        this.nodes = nodes;
+    }
+
+    public record Node(Long id, String name, Long parentId, int depth, List<Node> children) {
+    }
+
+    /* 전체 카테고리로 트리를 만든다. */
+    public static CategoryTree of(List<Category> categories){
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        List<Category> rootCategories = new ArrayList<>();
+        for (Category category : categories) {
+            if(category.getParent() == null){
+                rootCategories.add(category);
+            }else{
+                /* 프록시의 아이디 조회는 초기화하지 않는다. */
+                childrenByParent.computeIfAbsent(category.getParent().getId(), id -> new ArrayList<>()).add(category);
+            }
+        }
+
+        Map<Long, Node> nodes = new HashMap<>(categories.size() * 2);
+        List<Node> roots = rootCategories.stream()
+                .map(root -> toNode(root, null, 0, childrenByParent, nodes))
+                .toList();
+        return new CategoryTree(roots, Map.copyOf(nodes));
+    }
+
+    private static Node toNode(Category category, Long parentId, int depth
+            , Map<Long, List<Category>> childrenByParent, Map<Long, Node> nodes){
+        List<Node> children = childrenByParent.getOrDefault(category.getId(), List.of()).stream()
+                .map(child -> toNode(child, category.getId(), depth + 1, childrenByParent, nodes))
+                .toList();
+        Node node = new Node(category.getId(), category.getName(), parentId, depth, children);
+        nodes.put(node.id(), node);
+        return node;
+    }
+
+    public List<Node> getRoots(){
+        return roots;
+    }
+
+    public Optional<Node> find(Long id){
+        return Optional.ofNullable(nodes.get(id));
+    }
+
+    /* 자신과 모든 하위 카테고리 아이디 */
+    public List<Long> subtreeIds(Long id){
+        List<Long> ids = new ArrayList<>();
+        find(id).ifPresent(node -> collectIds(node, ids));
+        return ids;
+    }
+
+    private static void collectIds(Node node, List<Long> ids){
+        ids.add(node.id());
+        node.children().forEach(child -> collectIds(child, ids));
+    }
+
+    public int size(){
+        return nodes.size();
+    }
+}
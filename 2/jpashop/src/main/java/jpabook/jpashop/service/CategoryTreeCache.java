@@ -0,0 +1,45 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/* 카테고리 트리 스냅샷 보관
+* 읽기 - volatile 필드 하나를 읽기만 하므로 락이 없다.
+* 쓰기 - 카테고리 변경이 커밋되면 전체를 다시 조회해서 새 스냅샷으로 교체한다.
+*   카테고리는 수가 적고 변경이 드물어서 부분 수정보다 전체를 다시 만드는 것이 단순하고 안전하다.
+*   재생성은 한번에 하나씩 실행되므로 늦게 시작한 재생성이 항상 마지막 커밋까지 반영한다. */
+@Component
+public class CategoryTreeCache {
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile CategoryTree snapshot;
+
+    public CategoryTreeCache(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        /* 커밋이 끝난 트랜잭션의 리소스가 남아 있을 수 있으므로 새 트랜잭션에서 조회한다. */
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public CategoryTree get(){
+        CategoryTree current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event){
+        rebuild();
+    }
+
+    synchronized CategoryTree rebuild(){
+        CategoryTree tree = transactionTemplate.execute(status -> CategoryTree.of(categoryRepository.findAll()));
+        snapshot = tree;
+        return tree;
+    }
+}
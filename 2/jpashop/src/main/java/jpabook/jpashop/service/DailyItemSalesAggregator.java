@@ -0,0 +1,125 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.DailyItemSalesDelta;
+import jpabook.jpashop.repository.DailyItemSalesRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* 상품별 일 매출 집계(DailyItemSales)를 주문 트랜잭션과 함께 증감한다.
+* 트랜잭션 안에서 발생한 OrderSalesEvent를 모아 두었다가 커밋 직전(beforeCommit)에 한 번에 반영한다.
+* - 같은 키는 합쳐서 update 한번, 키 순서로 update 해서 동시에 커밋하는 트랜잭션끼리 교착 상태가 생기지 않는다.
+* - 집계 row 락은 커밋 직전부터만 잡기 때문에 인기 상품의 row에 주문이 몰려도 대기 시간이 짧다.
+* - 롤백되면 모아둔 값은 버려진다.
+* 그날 처음 팔린 상품처럼 row가 없으면 0인 row를 만든 뒤 다시 update 한다.
+* - insert는 주문 트랜잭션의 연결에서 savepoint를 두고 실행한다. (DailyItemSalesRepository.insertIfAbsent)
+*   연결을 하나 더 잡지 않으므로 첫 판매가 몰려도(자정 직후 등) 커넥션 풀이 고갈되지 않고, 중복으로 실패하면 savepoint까지만 롤백된다.
+* - 그 사이 재생성(SalesReportService.rebuild)이 row를 지워서 다시 update가 0건이면 몇 번 더 시도하고, 그래도 없으면 주문 트랜잭션을 실패시킨다. */
+@Component
+public class DailyItemSalesAggregator {
+    /* row를 만들고 다시 update 하는 최대 횟수 */
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final DailyItemSalesRepository dailyItemSalesRepository;
+    private final TransactionTemplate newTransaction;
+
+    public DailyItemSalesAggregator(DailyItemSalesRepository dailyItemSalesRepository, PlatformTransactionManager transactionManager) {
+        this.dailyItemSalesRepository = dailyItemSalesRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onOrderSales(OrderSalesEvent event){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            newTransaction.executeWithoutResult(status -> apply(event.deltas()));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if(pending == null){
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.deltas.addAll(event.deltas());
+    }
+
+    private void apply(List<DailyItemSalesDelta> deltas){
+        List<DailyItemSalesDelta> merged = merge(deltas);
+        if(merged.isEmpty()){
+            return;
+        }
+        List<DailyItemSalesDelta> missing = notUpdated(merged);
+        for (int attempt = 1; !missing.isEmpty(); attempt++) {
+            if(attempt > MAX_INSERT_ATTEMPTS){
+                throw new IllegalStateException("매출 집계 row를 만들지 못했습니다. " + missing);
+            }
+            missing.forEach(dailyItemSalesRepository::insertIfAbsent);
+            missing = notUpdated(missing);
+        }
+    }
+
+    /* update 하고 row가 없어서 반영되지 않은 증감을 반환한다. */
+    private List<DailyItemSalesDelta> notUpdated(List<DailyItemSalesDelta> deltas){
+        int[] counts = dailyItemSalesRepository.addAll(deltas);
+        List<DailyItemSalesDelta> missing = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if(counts[i] == 0){
+                missing.add(deltas.get(i));
+            }
+        }
+        return missing;
+    }
+
+    /* 키 순서로 정렬하고 같은 키는 합친다. */
+    private static List<DailyItemSalesDelta> merge(List<DailyItemSalesDelta> deltas){
+        List<DailyItemSalesDelta> sorted = new ArrayList<>(deltas);
+        Collections.sort(sorted);
+
+        List<DailyItemSalesDelta> merged = new ArrayList<>(sorted.size());
+        for (DailyItemSalesDelta delta : sorted) {
+            int last = merged.size() - 1;
+            if(last >= 0 && merged.get(last).sameKey(delta)){
+                merged.set(last, merged.get(last).plus(delta));
+            }else{
+                merged.add(delta);
+            }
+        }
+        merged.removeIf(DailyItemSalesDelta::isZero);
+        return merged;
+    }
+
+    /* 트랜잭션 하나에서 모은 증감
+    * 트랜잭션이 보류(REQUIRES_NEW)되는 동안에는 새 트랜잭션의 주문이 섞이지 않도록 연결을 풀어둔다. */
+    private class Pending implements TransactionSynchronization {
+        private final List<DailyItemSalesDelta> deltas = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(DailyItemSalesAggregator.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DailyItemSalesAggregator.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(deltas);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DailyItemSalesAggregator.this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package jpabook.jpashop.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* 상품 일괄 수정 CSV
+* 첫 줄은 헤더 - itemId 필수, price / stockQuantity 중 하나 이상, 순서는 상관없다.
+* 값이 비어 있으면 해당 항목은 변경하지 않는다.
+* ex)
+* itemId,price,stockQuantity
+* 1,10000,50
+* 2,12000,
+*/
+public record ItemBulkCsv(Map<Long, Integer> prices, Map<Long, Integer> stocks) {
+    private static final String ITEM_ID = "itemId";
+    private static final String PRICE = "price";
+    private static final String STOCK_QUANTITY = "stockQuantity";
+
+    public static ItemBulkCsv parse(BufferedReader reader){
+        try {
+            String header = reader.readLine();
+            if(header == null){
+                throw new IllegalArgumentException("CSV가 비어 있습니다.");
+            }
+            List<String> columns = Arrays.stream(header.strip().split(",")).map(String::strip).toList();
+            int idIndex = columns.indexOf(ITEM_ID);
+            int priceIndex = columns.indexOf(PRICE);
+            int stockIndex = columns.indexOf(STOCK_QUANTITY);
+            if(idIndex < 0 || (priceIndex < 0 && stockIndex < 0)){
+                throw new IllegalArgumentException("CSV 헤더에 itemId와 price 또는 stockQuantity가 필요합니다. header=" + header);
+            }
+
+            Map<Long, Integer> prices = new HashMap<>();
+            Map<Long, Integer> stocks = new HashMap<>();
+            String line;
+            int lineNo = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if(line.isBlank()){
+                    continue;
+                }
+                String[] cells = line.split(",", -1);
+                Long itemId = parseLong(cell(cells, idIndex), lineNo);
+                if(itemId == null){
+                    throw new IllegalArgumentException("CSV " + lineNo + "번째 줄에 itemId가 없습니다.");
+                }
+                putIfPresent(prices, itemId, cell(cells, priceIndex), lineNo);
+                putIfPresent(stocks, itemId, cell(cells, stockIndex), lineNo);
+            }
+            return new ItemBulkCsv(prices, stocks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String cell(String[] cells, int index){
+        return index < 0 || index >= cells.length ? "" : cells[index].strip();
+    }
+
+    private static void putIfPresent(Map<Long, Integer> values, Long itemId, String cell, int lineNo){
+        Long value = parseLong(cell, lineNo);
+        if(value == null){
+            return;
+        }
+        if(value < 0 || value > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("CSV " + lineNo + "번째 줄의 값이 범위를 벗어났습니다. value=" + cell);
+        }
+        if(values.put(itemId, value.intValue()) != null){
+            throw new IllegalArgumentException("CSV " + lineNo + "번째 줄의 상품이 중복되었습니다. itemId=" + itemId);
+        }
+    }
+
+    private static Long parseLong(String cell, int lineNo){
+        if(cell.isEmpty()){
+            return null;
+        }
+        try {
+            return Long.parseLong(cell);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("CSV " + lineNo + "번째 줄의 숫자 형식이 잘못되었습니다. value=" + cell, e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package jpabook.jpashop.service;
+
+/* 상품 추가/수정 - 커밋 후 검색 색인에 반영한다. (ItemSearchIndex) */
+public record ItemChangedEvent(ItemSearchDocument document) {
+}
@@ -0,0 +1,7 @@
+package jpabook.jpashop.service;
+
+import java.util.Map;
+
+/* 가격 일괄 수정 (상품 아이디 -> 가격) - 커밋 후 검색 색인의 가격을 바꾼다. (ItemSearchIndex) */
+public record ItemPricesChangedEvent(Map<Long, Integer> prices) {
+}
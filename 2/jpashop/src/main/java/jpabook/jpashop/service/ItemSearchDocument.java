@@ -0,0 +1,109 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import org.hibernate.Hibernate;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/* 검색 색인에 저장하는 상품 정보 - 엔티티가 아니라 커밋 시점의 값을 복사한 불변 객체이다. (ItemSearchIndex) */
+public record ItemSearchDocument(
+        Long id
+        , long version
+        , String type
+        , String name
+        , int price
+        , Map<Field, Set<String>> fieldTerms
+) {
+    private static final Pattern DELIMITER = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /* 검색 대상 필드와 가중치 */
+    public enum Field {
+        NAME(3), AUTHOR(2), ARTIST(2), DIRECTOR(2), ACTOR(1), ISBN(1);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    public static ItemSearchDocument from(Item item){
+        Item entity = (Item) Hibernate.unproxy(item);
+        Map<Field, Set<String>> fieldTerms = new EnumMap<>(Field.class);
+        put(fieldTerms, Field.NAME, tokenize(entity.getName()));
+        if(entity instanceof Book book){
+            put(fieldTerms, Field.AUTHOR, tokenize(book.getAuthor()));
+            /* ISBN은 하이픈을 빼고 하나의 단어로 저장한다. (하이픈 없이 검색) */
+            put(fieldTerms, Field.ISBN, tokenize(book.getIsbn() == null ? null : DELIMITER.matcher(book.getIsbn()).replaceAll("")));
+        }else if(entity instanceof Album album){
+            put(fieldTerms, Field.ARTIST, tokenize(album.getArtist()));
+        }else if(entity instanceof Movie movie){
+            put(fieldTerms, Field.DIRECTOR, tokenize(movie.getDirector()));
+            put(fieldTerms, Field.ACTOR, tokenize(movie.getActor()));
+        }
+        return new ItemSearchDocument(
+                entity.getId()
+                , entity.getVersion() == null ? -1 : entity.getVersion()
+                , entity.getClass().getSimpleName()
+                , entity.getName()
+                , entity.getPrice()
+                , Map.copyOf(fieldTerms)
+        );
+    }
+
+    private static void put(Map<Field, Set<String>> fieldTerms, Field field, Set<String> terms){
+        if(!terms.isEmpty()){
+            fieldTerms.put(field, terms);
+        }
+    }
+
+    /* 소문자로 바꾸고 문자/숫자가 아닌 값으로 나눈다. */
+    public static Set<String> tokenize(String text){
+        if(text == null || text.isBlank()){
+            return Set.of();
+        }
+        return Arrays.stream(DELIMITER.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /* 가격만 바뀐 문서 - 일괄 수정은 버전을 하나 올린다. (ItemRepository.bulkUpdatePrices) */
+    public ItemSearchDocument withPrice(int price){
+        return new ItemSearchDocument(id, version + 1, type, name, price, fieldTerms);
+    }
+
+    /* 모든 필드의 단어 */
+    public Set<String> terms(){
+        Set<String> terms = new HashSet<>();
+        fieldTerms.values().forEach(terms::addAll);
+        return terms;
+    }
+
+    /* 검색어 한 단어의 점수 - 단어가 같으면 가중치 x2, 앞부분만 같으면 가중치, 없으면 0 */
+    public int score(String queryTerm){
+        int score = 0;
+        for (Map.Entry<Field, Set<String>> entry : fieldTerms.entrySet()) {
+            int weight = entry.getKey().getWeight();
+            if(entry.getValue().contains(queryTerm)){
+                score += weight * 2;
+            }else if(entry.getValue().stream().anyMatch(term -> term.startsWith(queryTerm))){
+                score += weight;
+            }
+        }
+        return score;
+    }
+}
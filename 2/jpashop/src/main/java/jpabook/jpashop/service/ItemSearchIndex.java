@@ -0,0 +1,144 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.dto.ItemSearchDto;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/* 상품 검색 색인 (역색인)
+* 단어 -> 상품 아이디 목록을 메모리에 두고 검색시 DB를 조회하지 않는다.
+* - 색인 : 기동시 전체 상품을 한번 읽고, 이후에는 ItemService가 발행한 ItemChangedEvent를 커밋 후에 반영한다.
+* - 검색 : 검색어의 모든 단어가 포함된 상품을 필드 가중치 점수 순으로 반환한다. 단어는 앞부분만 일치해도 된다.
+* - 동시성 : 쓰기는 한번에 하나, 읽기는 락 없이 동시 컬렉션을 읽는다.
+*   색인은 후보를 고르는 용도이고 점수는 문서(ItemSearchDocument)로 다시 계산하기 때문에
+*   수정 중인 색인을 읽어도 잘못된 결과가 반환되지 않는다.
+* SQL로 직접 변경한 상품(DataSeeder 등)은 재기동 후에 검색된다. */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final NavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, ItemSearchDocument> documents = new ConcurrentHashMap<>();
+
+    public ItemSearchIndex(ItemRepository itemRepository, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        long started = System.nanoTime();
+        List<ItemSearchDocument> loaded = transactionTemplate.execute(status -> itemRepository.findAll().stream()
+                .map(ItemSearchDocument::from)
+                .toList());
+        loaded.forEach(this::index);
+        log.info("item search index loaded. items={}, terms={}, {}ms"
+                , documents.size(), postings.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event){
+        index(event.document());
+    }
+
+    /* 가격 일괄 수정 - 단어는 바뀌지 않으므로 문서만 교체한다. */
+    @TransactionalEventListener
+    public synchronized void onPricesChanged(ItemPricesChangedEvent event){
+        event.prices().forEach((itemId, price) -> documents.computeIfPresent(itemId, (id, document) -> document.withPrice(price)));
+    }
+
+    /* 추가 또는 교체 - 늦게 도착한 이전 버전의 문서는 무시한다. */
+    public synchronized void index(ItemSearchDocument document){
+        ItemSearchDocument previous = documents.get(document.id());
+        if(previous != null && previous.version() > document.version()){
+            return;
+        }
+        Set<String> terms = document.terms();
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(document.id());
+        }
+        documents.put(document.id(), document);
+        if(previous != null){
+            previous.terms().stream()
+                    .filter(term -> !terms.contains(term))
+                    .forEach(term -> removePosting(term, document.id()));
+        }
+    }
+
+    private void removePosting(String term, Long itemId){
+        Set<Long> ids = postings.get(term);
+        if(ids != null){
+            ids.remove(itemId);
+            if(ids.isEmpty()){
+                postings.remove(term);
+            }
+        }
+    }
+
+    public List<ItemSearchDto> search(String query, int limit){
+        List<String> queryTerms = List.copyOf(ItemSearchDocument.tokenize(query));
+        if(queryTerms.isEmpty()){
+            return List.of();
+        }
+
+        /* 후보가 가장 적은 단어로 후보를 고르고 나머지 단어는 점수 계산에서 확인한다. */
+        Set<Long> candidates = queryTerms.stream()
+                .map(this::prefixMatches)
+                .min(Comparator.comparingInt(Set::size))
+                .orElseGet(Set::of);
+
+        return candidates.stream()
+                .map(documents::get)
+                .filter(Objects::nonNull)
+                .map(document -> toResult(document, queryTerms))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt(ItemSearchDto::score).reversed()
+                        .thenComparing(ItemSearchDto::itemId))
+                .limit(limit)
+                .toList();
+    }
+
+    /* 검색어로 시작하는 모든 단어의 상품 아이디 */
+    private Set<Long> prefixMatches(String queryTerm){
+        Set<Long> ids = new HashSet<>();
+        postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false)
+                .values()
+                .forEach(ids::addAll);
+        return ids;
+    }
+
+    /* 검색어의 단어가 하나라도 없으면 null */
+    private static ItemSearchDto toResult(ItemSearchDocument document, List<String> queryTerms){
+        int score = 0;
+        for (String queryTerm : queryTerms) {
+            int termScore = document.score(queryTerm);
+            if(termScore == 0){
+                return null;
+            }
+            score += termScore;
+        }
+        return ItemSearchDto.of(document.id(), document.type(), document.name(), document.price(), score);
+    }
+
+    public int size(){
+        return documents.size();
+    }
+}
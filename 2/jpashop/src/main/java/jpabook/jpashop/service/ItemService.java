@@ -1,34 +1,146 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.item.Album;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.dto.ItemBulkUpdateDto;
+import jpabook.jpashop.dto.ItemListDto;
+import jpabook.jpashop.dto.ItemPatch;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /* 화면(폼) 수정 - loadedStockQuantity는 폼을 열 때 읽은 재고 수량
+    * 재고는 화면에서 바꾼 경우에만 반영한다. 그 사이 주문으로 줄어든 재고를 폼의 이전 값으로 덮어쓰지 않는다.
+    * 재고를 바꿨는데 폼을 연 뒤에 버전(param.version)이 바뀌었으면 낙관적 락 예외가 발생한다. (버전이 없으면 확인하지 않는다) */
     @Transactional
-    public void updateItem(Long itemId, Book param){
+    public void updateItem(Long itemId, Book param, int loadedStockQuantity){
         Item findItem = itemRepository.findOne(itemId);
         findItem.setPrice(param.getPrice());
         findItem.setName(param.getName());
-        findItem.setStockQuantity(param.getStockQuantity());
+        /* 재고가 분할된 상품은 shard에서 관리하므로 화면의 재고 수량을 반영하지 않는다. (StockService) */
+        if(!findItem.isShardedStock() && param.getStockQuantity() != loadedStockQuantity){
+            if(param.getVersion() != null && !param.getVersion().equals(findItem.getVersion())){
+                throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+            }
+            findItem.setStockQuantity(param.getStockQuantity());
+        }
+        if(findItem instanceof Book book){
+            book.setAuthor(param.getAuthor());
+            book.setIsbn(param.getIsbn());
+        }
+        /* 검색 색인은 커밋 후에 반영된다. (ItemSearchIndex) */
+        eventPublisher.publishEvent(new ItemChangedEvent(ItemSearchDocument.from(findItem)));
         /* svae를 호출 하지 않아도 저장이 된다.
         * 현재 영속성상태이므로 JPA가 감시하고 있어서 이다.*/
         //itemRepository.save(findItem);
     }
 
+    /* 부분 수정 - 요청에 포함된 값만 변경한다.
+    * Item은 @DynamicUpdate 이므로 update 문에도 변경된 컬럼만 포함된다. */
+    @Transactional
+    public void patchItem(Long itemId, ItemPatch patch){
+        Item item = itemRepository.findOne(itemId);
+        if(item == null){
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+        }
+        item = (Item) Hibernate.unproxy(item);
+        if(patch.name() != null){
+            item.setName(patch.name());
+        }
+        if(patch.price() != null){
+            item.setPrice(patch.price());
+        }
+        if(patch.stockQuantity() != null){
+            if(item.isShardedStock()){
+                throw new IllegalStateException("재고가 분할된 상품은 재고를 직접 수정할 수 없습니다. id=" + itemId);
+            }
+            item.setStockQuantity(patch.stockQuantity());
+        }
+        patchDetail(item, patch);
+        eventPublisher.publishEvent(new ItemChangedEvent(ItemSearchDocument.from(item)));
+    }
+
+    /* 상품 종류별 항목 - 다른 종류의 항목이 포함되면 오류 */
+    private static void patchDetail(Item item, ItemPatch patch){
+        boolean bookFields = patch.author() != null || patch.isbn() != null;
+        boolean albumFields = patch.artist() != null;
+        boolean movieFields = patch.director() != null || patch.actor() != null;
+        if(item instanceof Book book && !albumFields && !movieFields){
+            if(patch.author() != null){
+                book.setAuthor(patch.author());
+            }
+            if(patch.isbn() != null){
+                book.setIsbn(patch.isbn());
+            }
+        }else if(item instanceof Album album && !bookFields && !movieFields){
+            if(patch.artist() != null){
+                album.setArtist(patch.artist());
+            }
+        }else if(item instanceof Movie movie && !bookFields && !albumFields){
+            if(patch.director() != null){
+                movie.setDirector(patch.director());
+            }
+            if(patch.actor() != null){
+                movie.setActor(patch.actor());
+            }
+        }else{
+            throw new IllegalArgumentException("상품 종류에 없는 항목입니다. type=" + item.getClass().getSimpleName());
+        }
+    }
+
+    /* 가격 일괄 수정 (상품 아이디 -> 가격) - JDBC batch update, 수정된 상품 수를 반환한다. */
+    @Transactional
+    public int bulkUpdatePrices(Map<Long, Integer> prices){
+        checkNotNegative(prices);
+        int updated = itemRepository.bulkUpdatePrices(prices);
+        eventPublisher.publishEvent(new ItemPricesChangedEvent(Map.copyOf(prices)));
+        return updated;
+    }
+
+    /* 재고 일괄 수정 (상품 아이디 -> 재고) - 재고가 분할된 상품은 제외된다. */
+    @Transactional
+    public int bulkUpdateStocks(Map<Long, Integer> stocks){
+        checkNotNegative(stocks);
+        return itemRepository.bulkUpdateStocks(stocks);
+    }
+
+    /* CSV 일괄 수정 - 가격과 재고를 한 트랜잭션으로 수정한다. */
+    @Transactional
+    public ItemBulkUpdateDto bulkUpdate(ItemBulkCsv csv){
+        return ItemBulkUpdateDto.of(bulkUpdatePrices(csv.prices()), bulkUpdateStocks(csv.stocks()));
+    }
+
+    private static void checkNotNegative(Map<Long, Integer> values){
+        values.forEach((itemId, value) -> {
+            if(itemId == null || value == null || value < 0){
+                throw new IllegalArgumentException("잘못된 값입니다. itemId=" + itemId + ", value=" + value);
+            }
+        });
+    }
+
     @Transactional
     public Long saveItem(Item item){
         itemRepository.save(item);
+        /* merge는 전달한 객체가 아닌 영속 상태의 객체에 값을 복사하므로 영속 상태의 객체로 색인한다. */
+        eventPublisher.publishEvent(new ItemChangedEvent(ItemSearchDocument.from(itemRepository.findOne(item.getId()))));
         return item.getId();
     }
 
@@ -36,6 +148,16 @@ public class ItemService {
         return itemRepository.findAll();
     }
 
+    /* 상품 목록 화면/API - 페이지 단위 DTO 조회 */
+    public Page<ItemListDto> findItemPage(Pageable pageable){
+        return itemRepository.findPage(pageable);
+    }
+
+    /* 주문 화면 상품 선택 목록 */
+    public List<ItemListDto> findItemOptions(){
+        return itemRepository.findAllListDto();
+    }
+
     public Item findOne(Long itemId){
         return itemRepository.findOne(itemId);
     }
@@ -0,0 +1,93 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/* 가입된 회원 이름 블룸 필터 - 회원가입 중복 검사의 빠른 경로
+* 필터에 없는 이름은 가입된 적이 없는 이름이므로 중복 조회 쿼리를 생략한다.
+* 필터는 조회를 줄이는 용도일 뿐이고 중복은 member.name 유니크 제약조건이 최종적으로 막는다.
+* (다른 서버에서 가입한 이름처럼 필터에 없는 중복은 insert 시점에 제약조건 위반으로 실패한다.)
+* - 기동시 전체 이름을 한번 읽고, 이후 가입/이름 변경이 커밋되면 추가한다.
+* - 읽기 전에는 모든 이름을 "있을 수 있음"으로 처리한다. */
+@Slf4j
+@Component
+public class MemberNameFilter {
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StringBloomFilter filter;
+
+    private final Counter skipped;
+    private final Counter checked;
+
+    private volatile boolean loaded;
+
+    public MemberNameFilter(MemberRepository memberRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry
+            , @Value("${jpashop.member.name-filter.expected-names:1000000}") long expectedNames
+            , @Value("${jpashop.member.name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.filter = new StringBloomFilter(expectedNames, falsePositiveRate);
+        this.skipped = Counter.builder("jpashop.member.name-filter")
+                .tag("result", "skipped")
+                .description("중복 조회를 생략한 회원가입 수")
+                .register(meterRegistry);
+        this.checked = Counter.builder("jpashop.member.name-filter")
+                .tag("result", "checked")
+                .description("필터에 있어서 중복 조회를 실행한 회원가입 수")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        long started = System.nanoTime();
+        AtomicLong count = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> names = memberRepository.streamAllNames()) {
+                names.forEach(name -> {
+                    filter.put(name);
+                    count.incrementAndGet();
+                });
+            }
+        });
+        loaded = true;
+        log.info("member name filter loaded. names={}, {}ms", count.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /* false 이면 가입된 적 없는 이름 - 중복 조회를 생략해도 된다. */
+    public boolean mightExist(String name){
+        boolean mightExist = name == null || !loaded || filter.mightContain(name);
+        (mightExist ? checked : skipped).increment();
+        return mightExist;
+    }
+
+    /* 현재 트랜잭션이 커밋되면 추가 - 롤백된 이름은 넣지 않는다. */
+    public void addAfterCommit(String name){
+        if(name == null){
+            return;
+        }
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            filter.put(name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                filter.put(name);
+            }
+        });
+    }
+}
@@ -1,13 +1,26 @@
 package jpabook.jpashop.service;
 
+import jakarta.persistence.Tuple;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.dto.MemberImportDto;
+import jpabook.jpashop.repository.MemberField;
 import jpabook.jpashop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)/* 기본적으로 해당 설정이 적용된다. */
@@ -30,6 +43,12 @@ public class MemberService {
      * 2 방식으로 적용 시, 테스트 코드에서 임시데이터등을 입력이 가능
      * 3 방식으로 적용 시, 생성자 생성시 주입된다.*/
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final PlatformTransactionManager transactionManager;
+
+    /* 대량 가입시 하나의 트랜잭션으로 처리할 회원 수 */
+    @Value("${jpashop.member.import-chunk-size:1000}")
+    private int importChunkSize;
 
     /*3
     @Autowired
@@ -37,29 +56,125 @@ public class MemberService {
         this.memberRepository = memberRepository;
     }*/
 
-    /* 회원가입 */
+    /* 회원가입
+    * 조회로 중복을 확인한 뒤 저장하면 동시에 가입한 같은 이름이 모두 통과할 수 있으므로
+    * 바로 insert(flush) 해서 유니크 제약조건 위반을 중복 회원 예외로 바꾼다. */
     @Transactional/* 별개의 설정을 넣고 싶을 경우 별도로 지정해준다. */
     public Long join(Member member){
         validateDuplicateMember(member);
 
-        memberRepository.save(member);
+        try {
+            memberRepository.save(member);
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateMember(e);
+        }
+        memberNameFilter.addAfterCommit(member.getName());
 
         return member.getId();
     }
 
-    /* 중복 회원 검증 */
+    /* 중복 회원 검증 - 블룸 필터에 없는 이름은 가입된 적이 없으므로 조회하지 않는다. */
     private void validateDuplicateMember(Member member){
-        List<Member> findMembers = memberRepository.findeByName(member.getName());
-        if(!findMembers.isEmpty()){
+        if(memberNameFilter.mightExist(member.getName()) && memberRepository.existsByName(member.getName())){
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /* 이름 유니크 제약조건 위반이면 중복 회원 예외, 다른 제약조건이면 그대로 던진다. */
+    private static RuntimeException duplicateMember(DataIntegrityViolationException e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Member.NAME_UNIQUE_CONSTRAINT)){
+                return new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+        }
+        return e;
+    }
+
+    /* 대량 가입 - 이미 가입된 이름과 목록 안에서 중복된 이름은 건너뛴다.
+    * 청크마다 트랜잭션 하나로 처리한다.
+    * - 중복 조회 : 블룸 필터에 있을 수 있는 이름만 청크당 in 쿼리 한번
+    * - 저장 : JDBC batch insert (hibernate.jdbc.batch_size)
+    * - 조회와 저장 사이에 다른 곳에서 같은 이름이 가입되면 해당 청크만 한명씩 다시 가입한다. */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MemberImportDto importMembers(List<Member> members){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int chunkSize = Math.max(1, importChunkSize);
+
+        List<Member> unique = new ArrayList<>(members.size());
+        List<String> duplicates = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Member member : members) {
+            if(names.add(member.getName())){
+                unique.add(member);
+            }else{
+                duplicates.add(member.getName());
+            }
+        }
+
+        int imported = 0;
+        for (int from = 0; from < unique.size(); from += chunkSize) {
+            List<Member> chunk = unique.subList(from, Math.min(unique.size(), from + chunkSize));
+            try {
+                imported += transactionTemplate.execute(status -> importChunk(chunk, duplicates));
+            } catch (DataIntegrityViolationException e) {
+                imported += importOneByOne(transactionTemplate, chunk, duplicates);
+            }
+        }
+        return MemberImportDto.of(imported, duplicates);
+    }
+
+    private int importChunk(List<Member> chunk, List<String> duplicates){
+        List<String> maybeExisting = chunk.stream()
+                .map(Member::getName)
+                .filter(memberNameFilter::mightExist)
+                .toList();
+        Set<String> existing = maybeExisting.isEmpty()
+                ? Set.of()
+                : new HashSet<>(memberRepository.findExistingNames(maybeExisting));
+
+        int imported = 0;
+        for (Member member : chunk) {
+            if(existing.contains(member.getName())){
+                continue;
+            }
+            memberRepository.save(member);
+            memberNameFilter.addAfterCommit(member.getName());
+            imported++;
+        }
+        memberRepository.flush();
+        memberRepository.clear();
+        duplicates.addAll(existing);
+        return imported;
+    }
+
+    /* 청크가 롤백된 경우 - 저장하면서 받은 아이디를 지우고 한명씩 가입한다. */
+    private int importOneByOne(TransactionTemplate transactionTemplate, List<Member> chunk, List<String> duplicates){
+        int imported = 0;
+        for (Member member : chunk) {
+            member.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> join(member));
+                imported++;
+            } catch (IllegalStateException e) {
+                duplicates.add(member.getName());
+            }
+        }
+        return imported;
+    }
+
     /* 회원 전체 조회 */
     public List<Member> findMembers(){
         return memberRepository.findAll();
     }
 
+    /* 회원 부분 조회 - 엔티티를 만들지 않고 요청한 필드만 조회한다. */
+    public List<Tuple> findMembers(List<MemberField> fields){
+        return memberRepository.findAll(fields);
+    }
+
     /* 회원 단건 조회 */
     public Member findOne(Long memgerId){
         return memberRepository.findOne(memgerId);
@@ -69,5 +184,11 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
         member.setName(name);
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateMember(e);
+        }
+        memberNameFilter.addAfterCommit(name);
     }
 }
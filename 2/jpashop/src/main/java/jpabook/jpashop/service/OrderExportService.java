@@ -0,0 +1,81 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderExportService {
+    private static final byte NEW_LINE = '\n';
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    /* JDBC 드라이버가 한 번에 가져오는 row 수 */
+    @Value("${jpashop.export.fetch-size:500}")
+    private int fetchSize;
+
+    /* 해당 row 수 만큼 처리할 때마다 영속성 컨텍스트를 비우고 응답을 flush 한다. */
+    @Value("${jpashop.export.clear-interval:1000}")
+    private int clearInterval;
+
+    /**
+     * 전체 주문을 NDJSON(한 줄에 OrderQueryDto 하나)으로 out에 쓴다.
+     * 주문을 모두 모아두지 않고 조립되는 즉시 쓰기 때문에 주문 수와 상관없이 힙 사용량이 일정하다.
+     * @return 내보낸 주문 수
+     */
+    public long exportOrders(OutputStream out) throws IOException {
+        long[] orderCount = {0};
+        OrderFlatAssembler assembler = new OrderFlatAssembler(order -> {
+            writeLine(out, order);
+            orderCount[0]++;
+        });
+
+        long rowCount = 0;
+        try (Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat(fetchSize)) {
+            Iterator<OrderFlatDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                assembler.accept(iterator.next());
+
+                if (++rowCount % clearInterval == 0) {
+                    em.clear();
+                    out.flush();
+                }
+            }
+            assembler.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+
+        log.info(">>> order export finished. orders={}, rows={}", orderCount[0], rowCount);
+        return orderCount[0];
+    }
+
+    private void writeLine(OutputStream out, OrderQueryDto order) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(order));
+            out.write(NEW_LINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
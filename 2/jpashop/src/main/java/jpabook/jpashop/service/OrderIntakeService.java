@@ -0,0 +1,192 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* 비동기 주문 접수
+* 요청 스레드는 주문을 큐에 넣고 접수표(OrderTicket)를 바로 반환한다.
+* 작업 스레드가 큐에서 최대 groupSize 건을 꺼내 하나의 트랜잭션으로 커밋한다. (group commit)
+* - 큐가 가득 차면 OrderQueueFullException (429)
+* - 그룹 커밋이 실패하면 해당 그룹은 한 건씩 다시 처리해서 한 주문의 실패가 다른 주문에 영향을 주지 않게 한다.
+* - 완료된 접수표는 ticketTtl 이 지나면 지운다. 큐가 쉬지 않아도 작업 스레드가 evictInterval 마다 확인한다.
+* 접수표는 서버 메모리에만 있으므로 재시작하면 처리되지 않은 접수는 사라진다. */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIntakeService {
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private final OrderService orderService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jpashop.order.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${jpashop.order.intake.workers:4}")
+    private int workers;
+
+    /* 트랜잭션 하나로 커밋할 최대 주문 수 */
+    @Value("${jpashop.order.intake.group-size:20}")
+    private int groupSize;
+
+    @Value("${jpashop.order.intake.ticket-ttl:10m}")
+    private Duration ticketTtl;
+
+    /* 만료된 접수표를 지우는 주기 - 작업 스레드 중 하나가 그룹 처리 사이에 실행한다. */
+    @Value("${jpashop.order.intake.evict-interval:1s}")
+    private Duration evictInterval;
+
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+    private BlockingQueue<OrderTicket> queue;
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("jpashop.order.intake.queue", queue, BlockingQueue::size);
+
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /* 종료시 큐에 남은 주문을 처리한 뒤 작업 스레드를 멈춘다. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn(">>> [order-intake] 처리되지 않은 접수 {}건", queue.size());
+            executor.shutdownNow();
+        }
+    }
+
+    public OrderTicket submit(Long memberId, Long itemId, int count) {
+        OrderTicket ticket = new OrderTicket(memberId, itemId, count);
+        tickets.put(ticket.getId(), ticket);
+        if (!running || !queue.offer(ticket)) {
+            tickets.remove(ticket.getId());
+            throw new OrderQueueFullException("주문 접수 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.");
+        }
+        return ticket;
+    }
+
+    public Optional<OrderTicket> findTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    /* 보관중인 접수표 수 */
+    int ticketCount() {
+        return tickets.size();
+    }
+
+    private void drain() {
+        List<OrderTicket> group = new ArrayList<>(groupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderTicket first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, groupSize - 1);
+                    commit(group);
+                }
+                evictExpiredTicketsIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error(">>> [order-intake] 접수 처리 실패", e);
+                group.forEach(ticket -> ticket.rejected("주문 처리중 오류가 발생했습니다."));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /* 그룹 하나를 트랜잭션 하나로 커밋한다. 결과는 커밋이 끝난 뒤에 접수표에 반영한다. */
+    private void commit(List<OrderTicket> group) {
+        List<Long> orderIds;
+        try {
+            orderIds = transactionTemplate.execute(status -> group.stream()
+                    .map(this::tryOrder)
+                    .toList());
+        } catch (RuntimeException e) {
+            log.warn(">>> [order-intake] 그룹 커밋 실패, 한 건씩 다시 처리합니다. size={}", group.size(), e);
+            group.forEach(this::commitOne);
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), orderIds.get(i));
+        }
+    }
+
+    private void commitOne(OrderTicket ticket) {
+        try {
+            complete(ticket, transactionTemplate.execute(status -> tryOrder(ticket)));
+        } catch (RuntimeException e) {
+            log.warn(">>> [order-intake] 주문 실패 {}", ticket, e);
+            ticket.rejected("주문 처리중 오류가 발생했습니다.");
+        }
+    }
+
+    private Long tryOrder(OrderTicket ticket) {
+        return orderService.tryOrder(ticket.getMemberId(), ticket.getItemId(), ticket.getCount());
+    }
+
+    private static void complete(OrderTicket ticket, Long orderId) {
+        if (orderId == null) {
+            ticket.rejected("재고가 부족하거나 주문할 수 없는 회원/상품입니다.");
+        } else {
+            ticket.ordered(orderId);
+        }
+    }
+
+    /* 큐가 계속 차 있으면 poll이 시간 초과되지 않으므로 시간 기준으로 실행한다. (작업 스레드 중 하나만 실행) */
+    private void evictExpiredTicketsIfDue() {
+        long now = System.nanoTime();
+        long last = lastEviction.get();
+        if (now - last >= evictInterval.toNanos() && lastEviction.compareAndSet(last, now)) {
+            evictExpiredTickets();
+        }
+    }
+
+    private void evictExpiredTickets() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.isCompleted() && ticket.getCompletedAt().isBefore(expiredBefore));
+    }
+}
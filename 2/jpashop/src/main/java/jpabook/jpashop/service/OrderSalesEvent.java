@@ -0,0 +1,35 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.DailyItemSalesDelta;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/* 주문/취소로 바뀐 상품별 일 매출 - 커밋 직전 같은 트랜잭션에서 집계 테이블에 반영한다. (DailyItemSalesAggregator)
+* 매출일은 주문일 기준이므로 취소하면 주문일의 ORDER에서 빼고 CANCEL에 더한다. */
+public record OrderSalesEvent(List<DailyItemSalesDelta> deltas) {
+
+    public static OrderSalesEvent placed(Order order) {
+        return new OrderSalesEvent(deltas(order, OrderStatus.ORDER, 1));
+    }
+
+    public static OrderSalesEvent canceled(Order order) {
+        List<DailyItemSalesDelta> deltas = new ArrayList<>(deltas(order, OrderStatus.ORDER, -1));
+        deltas.addAll(deltas(order, OrderStatus.CANCEL, 1));
+        return new OrderSalesEvent(deltas);
+    }
+
+    private static List<DailyItemSalesDelta> deltas(Order order, OrderStatus status, int sign) {
+        LocalDate salesDate = order.getOrderDate().toLocalDate();
+        List<DailyItemSalesDelta> deltas = new ArrayList<>(order.getOrderItems().size());
+        for (OrderItem orderItem : order.getOrderItems()) {
+            deltas.add(DailyItemSalesDelta.of(salesDate, orderItem.getItem().getId(), status,
+                    (long) sign * orderItem.getCount(), (long) sign * orderItem.getOrderPrice() * orderItem.getCount()));
+        }
+        return deltas;
+    }
+}
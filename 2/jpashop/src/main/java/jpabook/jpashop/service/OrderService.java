@@ -1,20 +1,41 @@
 package jpabook.jpashop.service;
 
+import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.BulkOrderDto;
+import jpabook.jpashop.dto.OrderCommand;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.retry.RetryOnOptimisticLock;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingInt;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
@@ -22,12 +43,42 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /* 대량 주문시 하나의 트랜잭션으로 처리할 주문 수 */
+    @Value("${jpashop.order.bulk-chunk-size:100}")
+    private int bulkChunkSize;
 
     /* 주문 */
+    @RetryOnOptimisticLock
     @Transactional
     public Long order(Long memberId, Long itemId, int count){
+        /* 재고 차감 - 조건부 update */
+        reserveStock(itemId, count);
+
         /* 엔티티 조회 */
         Member member = memberRepository.findOne(memberId);
+
+        return placeReserved(member, itemId, count);
+    }
+
+    /* 비동기 접수(OrderIntakeService)용 주문
+    * 호출한 쪽 트랜잭션(여러 주문을 묶은 그룹)에 참여한다. 예외가 발생하면 그룹 전체가 rollback-only가 되므로
+    * 주문할 수 없는 경우(회원 없음, 상품 없음, 재고 부족)는 예외 대신 null을 반환한다. */
+    @Transactional
+    public Long tryOrder(Long memberId, Long itemId, int count){
+        Member member = memberRepository.findOne(memberId);
+        if(member == null || !stockService.reserve(itemId, count)){
+            return null;
+        }
+        return placeReserved(member, itemId, count);
+    }
+
+    /* 재고를 차감한 뒤 주문 생성 */
+    private Long placeReserved(Member member, Long itemId, int count){
         Item item = itemRepository.findOne(itemId);
 
         /* 배송정보 생성 */
@@ -35,18 +86,111 @@ public class OrderService {
         delivery.setAddress(member.getAddress());
 
         /* 주문상품 생성 */
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
         /* 주문 생성 */
         Order order = Order.createOrder(member, delivery, orderItem);
 
         /* 주문 저장 */
         orderRepository.save(order);
+        eventPublisher.publishEvent(OrderSalesEvent.placed(order));
 
         return order.getId();
     }
 
-    /* 취소 */
+    /* 대량 주문
+    * 주문 bulkChunkSize 건을 하나의 트랜잭션(청크)으로 처리한다.
+    * 청크마다 회원, 상품을 in 쿼리로 한번씩 조회하고 insert는 hibernate.jdbc.batch_size 단위로 묶어서 실행된다.
+    * 청크 처리중 예외가 발생하면 해당 청크만 롤백되고 남은 청크는 처리하지 않는다.
+    * 앞서 커밋된 청크의 주문 아이디와 실패한 청크의 범위를 같이 반환한다. (예외로 던지면 커밋된 주문 아이디를 알 수 없다) */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkOrderDto placeOrders(List<OrderCommand> commands){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int chunkSize = Math.max(1, bulkChunkSize);
+
+        List<Long> orderIds = new ArrayList<>(commands.size());
+        for (int from = 0; from < commands.size(); from += chunkSize) {
+            int to = Math.min(commands.size(), from + chunkSize);
+            List<OrderCommand> chunk = commands.subList(from, to);
+            try {
+                orderIds.addAll(transactionTemplate.execute(status -> placeChunk(chunk)));
+            } catch (IllegalArgumentException | NotEnoughStockException e) {
+                return BulkOrderDto.failed(orderIds, from, to, e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn(">>> [bulk-order] 청크 처리 실패 [{}, {})", from, to, e);
+                return BulkOrderDto.failed(orderIds, from, to, "주문 처리중 오류가 발생했습니다.");
+            }
+        }
+        return BulkOrderDto.completed(orderIds);
+    }
+
+    private List<Long> placeChunk(List<OrderCommand> chunk){
+        /* 재고 차감 - 청크 안에서 상품별로 수량을 합쳐 상품당 update 한번
+        * 상품 아이디 순서로 update 해서 동시에 실행되는 청크끼리 row 락 순서가 엇갈리지 않게 한다. */
+        chunk.stream()
+                .flatMap(command -> command.lines().stream())
+                .collect(groupingBy(OrderCommand.Line::itemId, TreeMap::new, summingInt(OrderCommand.Line::count)))
+                .forEach(this::reserveStock);
+
+        /* 엔티티 조회 - in 쿼리 */
+        Map<Long, Member> members = memberRepository.findAllByIds(chunk.stream()
+                        .map(OrderCommand::memberId)
+                        .collect(toSet()))
+                .stream()
+                .collect(toMap(Member::getId, Function.identity()));
+        Map<Long, Item> items = itemRepository.findAllByIds(chunk.stream()
+                        .flatMap(command -> command.lines().stream())
+                        .map(OrderCommand.Line::itemId)
+                        .collect(toSet()))
+                .stream()
+                .collect(toMap(Item::getId, Function.identity()));
+
+        List<Long> orderIds = new ArrayList<>(chunk.size());
+        for (OrderCommand command : chunk) {
+            Member member = required(members, command.memberId(), "회원");
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem[] orderItems = command.lines().stream()
+                    .map(line -> {
+                        Item item = required(items, line.itemId(), "상품");
+                        return OrderItem.createReservedOrderItem(item, item.getPrice(), line.count());
+                    })
+                    .toArray(OrderItem[]::new);
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            orderRepository.save(order);
+            eventPublisher.publishEvent(OrderSalesEvent.placed(order));
+            orderIds.add(order.getId());
+        }
+
+        /* OSIV로 영속성 컨텍스트가 요청 끝까지 유지되는 경우에도 청크마다 비워준다. */
+        em.flush();
+        em.clear();
+        return orderIds;
+    }
+
+    /* 재고가 부족하면 NotEnoughStockException - 트랜잭션이 롤백되면서 차감한 재고도 원복된다. */
+    private void reserveStock(Long itemId, int count){
+        if(!stockService.reserve(itemId, count)){
+            if(itemRepository.findOne(itemId) == null){
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+            }
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    private static <T> T required(Map<Long, T> entities, Long id, String name){
+        T entity = entities.get(id);
+        if(entity == null){
+            throw new IllegalArgumentException("존재하지 않는 " + name + "입니다. id=" + id);
+        }
+        return entity;
+    }
+
+    /* 취소 - 동시에 취소하면 한쪽은 충돌 후 재시도에서 "이미 취소된 주문" 예외가 발생한다. */
+    @RetryOnOptimisticLock
     @Transactional
     public void cancelOrder(Long orderId){
         /* 엔티티 조회 */
@@ -54,6 +198,14 @@ public class OrderService {
 
         /* 주문 취소 */
         order.cancel();
+
+        /* 제고 수량 복구 - 조건부 update */
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockService.release(orderItem.getItem().getId(), orderItem.getCount());
+        }
+
+        /* 매출 집계 - 주문일의 ORDER에서 CANCEL로 옮긴다. */
+        eventPublisher.publishEvent(OrderSalesEvent.canceled(order));
     }
 
     /* 검색 */
@@ -0,0 +1,54 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/* 비동기 주문 접수표 - 접수시 바로 반환되고, 작업 스레드가 주문을 커밋하면 결과가 채워진다. (OrderIntakeService) */
+@Getter
+@ToString
+public class OrderTicket {
+    public enum Status {
+        PENDING, ORDERED, REJECTED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long memberId;
+    private final Long itemId;
+    private final int count;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    /* 작업 스레드에서 변경하고 요청 스레드에서 조회한다. */
+    private volatile Status status = Status.PENDING;
+    private volatile Long orderId;
+    private volatile String message;
+    private volatile LocalDateTime completedAt;
+
+    OrderTicket(Long memberId, Long itemId, int count) {
+        this.memberId = memberId;
+        this.itemId = itemId;
+        this.count = count;
+    }
+
+    void ordered(Long orderId) {
+        this.orderId = orderId;
+        complete(Status.ORDERED, null);
+    }
+
+    void rejected(String message) {
+        complete(Status.REJECTED, message);
+    }
+
+    boolean isCompleted() {
+        return status != Status.PENDING;
+    }
+
+    /* status를 마지막에 변경해서 상태를 본 쪽이 orderId, message도 볼 수 있게 한다. */
+    private void complete(Status status, String message) {
+        this.message = message;
+        this.completedAt = LocalDateTime.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.dto.SalesBackfillDto;
+import jpabook.jpashop.dto.SalesReportDto;
+import jpabook.jpashop.repository.DailyItemSalesRepository;
+import jpabook.jpashop.repository.SalesReportGroup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* 매출 조회 / 집계 재생성
+* 조회는 상품별 일 매출 집계(DailyItemSales)만 읽는다. */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesReportService {
+    /* 한번에 조회할 수 있는 최대 일 수 */
+    public static final int MAX_REPORT_DAYS = 366;
+
+    /* 집계 중 같은 날 처음 팔린 상품의 row가 동시에 만들어지면 해당 일자만 다시 집계한다. */
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final DailyItemSalesRepository dailyItemSalesRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /* 집계 재생성시 일자를 나눠서 처리할 스레드 수 */
+    @Value("${jpashop.report.backfill-threads:4}")
+    private int backfillThreads;
+
+    /* 매출 조회 - [from, to] 기간, itemId, status가 null이면 전체 */
+    public List<SalesReportDto> findSales(LocalDate from, LocalDate to, Long itemId, OrderStatus status, SalesReportGroup group){
+        if(from.isAfter(to)){
+            throw new IllegalArgumentException("조회 시작일이 종료일보다 늦습니다. from=" + from + ", to=" + to);
+        }
+        if(ChronoUnit.DAYS.between(from, to) >= MAX_REPORT_DAYS){
+            throw new IllegalArgumentException("조회 기간은 최대 " + MAX_REPORT_DAYS + "일입니다.");
+        }
+        return dailyItemSalesRepository.findReport(from, to, itemId, status, group);
+    }
+
+    /* 집계 재생성 - 원본 주문(ordes, order_item)에서 일 단위로 다시 집계한다.
+    * from, to가 없으면 첫 주문일 ~ 마지막 주문일 전체를 다시 만들고 그 밖의 집계는 지운다.
+    * 하루치(삭제 + insert select)가 트랜잭션 하나이고, 일자들을 스레드풀에서 나눠서 실행한다.
+    * 주문을 받는 중에 실행해도 된다.
+    * - 재집계보다 먼저 커밋된 주문은 재집계 결과에 포함된다.
+    * - 재집계 중에 커밋되는 주문은 재집계가 지운 row의 락을 기다린 뒤 새로 만들어진 row에 더해진다.
+    *   (새 row를 동시에 만들어 충돌하면 해당 일자만 다시 집계한다.) */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SalesBackfillDto rebuild(LocalDate from, LocalDate to){
+        long started = System.nanoTime();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        if(from == null || to == null){
+            Optional<LocalDate> first = transactionTemplate.execute(status -> dailyItemSalesRepository.findFirstOrderDate());
+            Optional<LocalDate> last = transactionTemplate.execute(status -> dailyItemSalesRepository.findLastOrderDate());
+            from = from != null ? from : first.orElse(null);
+            to = to != null ? to : last.orElse(null);
+
+            LocalDate keepFrom = first.orElse(null);
+            LocalDate keepTo = last.orElse(null);
+            transactionTemplate.executeWithoutResult(status -> dailyItemSalesRepository.deleteOutside(keepFrom, keepTo));
+        }
+        if(from == null || to == null || from.isAfter(to)){
+            return SalesBackfillDto.of(from, to, 0, 0, elapsedMillis(started));
+        }
+
+        List<LocalDate> days = from.datesUntil(to.plusDays(1)).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(backfillThreads, days.size())));
+        long rows = 0;
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(days.size());
+            for (LocalDate day : days) {
+                futures.add(executor.submit(() -> rebuildDay(transactionTemplate, day)));
+            }
+            for (Future<Integer> future : futures) {
+                rows += await(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SalesBackfillDto result = SalesBackfillDto.of(from, to, days.size(), rows, elapsedMillis(started));
+        log.info("daily item sales rebuilt. {}", result);
+        return result;
+    }
+
+    private int rebuildDay(TransactionTemplate transactionTemplate, LocalDate day){
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> dailyItemSalesRepository.rebuildDay(day));
+            } catch (DataIntegrityViolationException e) {
+                if(attempt >= REBUILD_ATTEMPTS){
+                    throw e;
+                }
+                log.debug("daily item sales rebuild conflict. day={}, attempt={}", day, attempt);
+            }
+        }
+    }
+
+    private static int await(Future<Integer> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("매출 집계 재생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("매출 집계 재생성에 실패했습니다.", e.getCause());
+        }
+    }
+
+    private static long elapsedMillis(long startedNanos){
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,134 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.ItemStockShard;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemStockShardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/* 재고 차감 / 복구
+* 일반 상품은 item row 하나에서 조건부 update로 차감한다. (ItemRepository.decreaseStock)
+* 재고가 분할된 인기 상품은 다른 주문이 잠그지 않은 shard 하나에서 차감한다.
+* 주문이 shard 수 만큼의 row로 나눠지므로 row 락 경합이 줄어든다.
+*
+* 락 순서 - 한 상품의 shard 락은 기다리는 경우 항상 shardNo 순서로 잡는다. (교착 상태 방지)
+* - 빠른 경로 : 잠기지 않은 shard 하나만 기다리지 않고 잠근다. (ItemStockShardRepository.lockAvailable)
+* - 느린 경로 : 모든 shard를 shardNo 순서로 잠근다. (남은 재고가 흩어졌거나 모든 shard가 잠겨 있는 경우)
+* 빠른 경로에서 조건부 update를 차례로 시도하면 실패한 update도 락을 잡고 있을 수 있어서(H2, InnoDB)
+* 임의의 shard부터 시작하는 순서와 느린 경로의 순서가 엇갈려 교착 상태가 생긴다.
+* 동시 주문이 shard 수보다 많으면 느린 경로로 직렬화되므로 shard 수는 동시 주문 수에 맞춰 정한다. */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class StockService {
+    private final ItemRepository itemRepository;
+    private final ItemStockShardRepository itemStockShardRepository;
+
+    /* 분할된 상품의 shard 수 - 분할된 상품만 담는다. (분할은 되돌리지 않고 shard 수도 바뀌지 않는다)
+    * 없는 상품은 item row에서 먼저 처리하고, 실패하면 DB에서 분할 여부를 확인한다.
+    * 그래서 다른 서버에서 분할한 상품도 item row 재고(0)로 품절 처리되지 않고 shard에서 처리된다. */
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    /* 재고 차감 - 부족하면 false */
+    @Transactional
+    public boolean reserve(Long itemId, int count){
+        Integer shards = shardCounts.get(itemId);
+        if(shards == null){
+            if(itemRepository.decreaseStock(itemId, count)){
+                return true;
+            }
+            shards = findShardCount(itemId);
+            if(shards == 0){
+                return false;
+            }
+        }
+
+        Integer shardNo = itemStockShardRepository.lockAvailable(itemId, ThreadLocalRandom.current().nextInt(shards), count);
+        if(shardNo != null && itemStockShardRepository.decrease(itemId, shardNo, count)){
+            return true;
+        }
+        /* 재고가 있는 shard가 모두 잠겨 있거나, 남은 재고가 여러 shard에 흩어진 경우 (품절 직전) */
+        return reserveAcrossShards(itemId, count);
+    }
+
+    /* 재고 복구 (주문 취소) */
+    @Transactional
+    public void release(Long itemId, int count){
+        Integer shards = shardCounts.get(itemId);
+        if(shards == null){
+            if(itemRepository.increaseStock(itemId, count)){
+                return;
+            }
+            shards = findShardCount(itemId);
+            if(shards == 0){
+                return;
+            }
+        }
+        itemStockShardRepository.increase(itemId, ThreadLocalRandom.current().nextInt(shards), count);
+    }
+
+    /* 재고 분할 - 현재 재고를 shardCount 개의 row로 고르게 나눈다. */
+    @Transactional
+    public void enableSharding(Long itemId, int shardCount){
+        if(shardCount < 2){
+            throw new IllegalArgumentException("shard 수는 2 이상이어야 합니다. shardCount=" + shardCount);
+        }
+        Item item = itemRepository.findOneForUpdate(itemId);
+        if(item == null){
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. id=" + itemId);
+        }
+        if(item.isShardedStock()){
+            throw new IllegalStateException("이미 재고가 분할된 상품입니다. id=" + itemId);
+        }
+
+        int stock = item.getStockQuantity();
+        for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+            int quantity = stock / shardCount + (shardNo < stock % shardCount ? 1 : 0);
+            itemStockShardRepository.save(ItemStockShard.create(item, shardNo, quantity));
+        }
+        item.setStockQuantity(0);
+        item.setShardedStock(true);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                shardCounts.put(itemId, shardCount);
+            }
+        });
+    }
+
+    private boolean reserveAcrossShards(Long itemId, int count){
+        List<ItemStockShard> shards = itemStockShardRepository.findAllByItemForUpdate(itemId);
+        int total = shards.stream().mapToInt(ItemStockShard::getQuantity).sum();
+        if(total < count){
+            return false;
+        }
+
+        int remaining = count;
+        for (ItemStockShard shard : shards) {
+            remaining -= shard.take(remaining);
+            if(remaining == 0){
+                break;
+            }
+        }
+        return true;
+    }
+
+    /* 분할되지 않은 상품이면 0 */
+    private int findShardCount(Long itemId){
+        int shards = itemStockShardRepository.countByItem(itemId);
+        if(shards > 0){
+            shardCounts.put(itemId, shards);
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* 문자열 블룸 필터
+* - mightContain이 false 이면 넣은 적이 없는 값이 확실하다.
+* - true 이면 넣은 값이거나 오탐(false positive) - 오탐 확률은 넣은 건수가 expectedInsertions를 넘으면 커진다.
+* 비트 배열은 AtomicLongArray라서 여러 스레드가 락 없이 넣고 조회할 수 있다. 삭제는 지원하지 않는다. */
+final class StringBloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+
+    StringBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if(expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1){
+            throw new IllegalArgumentException("expectedInsertions=" + expectedInsertions + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        /* 최적 비트 수 m = -n ln p / (ln 2)^2, 해시 수 k = m / n ln 2 */
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    void put(String value){
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1, h2, i));
+        }
+    }
+
+    boolean mightContain(String value){
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            if(!getBit(index(h1, h2, i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* 이중 해싱 - 64bit 해시 하나로 k개의 위치를 만든다. */
+    private long index(int h1, int h2, int i){
+        long combined = h1 + (long) i * h2;
+        return Math.floorMod(combined, bitSize);
+    }
+
+    private void setBit(long index){
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        while (((current = bits.get(word)) & mask) == 0) {
+            if(bits.compareAndSet(word, current, current | mask)){
+                return;
+            }
+        }
+    }
+
+    private boolean getBit(long index){
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /* FNV-1a 64bit + murmur3 fmix64 (비트 분산) */
+    private static long hash(String value){
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,14 @@
+-- 주문 금액, 주문상품 수 컬럼 추가 (Order.totalPrice, Order.itemCount)
+-- ddl-auto: none 으로 운영중인 데이터베이스에 애플리케이션을 배포하기 전에 한번 실행한다.
+-- 컬럼을 null 허용으로 추가하고 order_item으로 기존 주문을 채운 뒤에 not null로 바꾼다.
+alter table ordes add column if not exists total_price integer;
+alter table ordes add column if not exists item_count integer;
+
+update ordes o
+   set total_price = coalesce((select sum(oi.order_price * oi.count) from order_item oi where oi.order_id = o.order_id), 0)
+     , item_count = (select count(*) from order_item oi where oi.order_id = o.order_id)
+ where o.total_price is null
+    or o.item_count is null;
+
+alter table ordes alter column total_price set not null;
+alter table ordes alter column item_count set not null;
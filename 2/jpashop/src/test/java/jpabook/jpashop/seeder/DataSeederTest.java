@@ -0,0 +1,98 @@
+package jpabook.jpashop.seeder;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("데이터 생성 - seed 프로필")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seed",//다른 테스트 컨텍스트의 데이터베이스와 분리
+        "jpashop.seed.members=200",
+        "jpashop.seed.items=30",
+        "jpashop.seed.categories=10",
+        "jpashop.seed.orders=1000",
+        "jpashop.seed.max-items-per-order=3",
+        "jpashop.seed.threads=4",
+        "jpashop.seed.batch-size=70"
+})
+@ActiveProfiles("seed")
+@Transactional
+class DataSeederTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberService memberService;
+    private final EntityManager em;
+
+    @Autowired
+    public DataSeederTest(JdbcTemplate jdbcTemplate, MemberService memberService, EntityManager em) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberService = memberService;
+        this.em = em;
+    }
+
+    @DisplayName("데이터 생성 - 설정한 건수")
+    @Test
+    public void 설정한_건수() throws Exception{
+        assertEquals(200, count("select count(*) from member"));
+        assertEquals(30, count("select count(*) from item"));
+        assertEquals(3, count("select count(distinct dtype) from item"), "Book, Album, Movie 모두 생성되어야 한다.");
+        assertEquals(10, count("select count(*) from category"));
+        assertEquals(1000, count("select count(*) from ordes"));
+        assertEquals(1000, count("select count(*) from delivery"));
+
+        long orderItems = count("select count(*) from order_item");
+        assertTrue(orderItems >= 1000 && orderItems <= 3000, "주문상품 수 = " + orderItems);
+        assertEquals(0, count("select count(*) from ordes o where not exists (select 1 from order_item oi where oi.order_id = o.order_id)"));
+        assertEquals(0, count("select count(*) from ordes o" +
+                " where o.total_price <> (select sum(oi.order_price * oi.count) from order_item oi where oi.order_id = o.order_id)" +
+                " or o.item_count <> (select count(*) from order_item oi where oi.order_id = o.order_id)"), "주문 금액, 주문상품 수");
+    }
+
+    @DisplayName("데이터 생성 - 매출 집계도 원본 주문에서 만들어진다.")
+    @Test
+    public void 매출_집계() throws Exception{
+        assertEquals(count("select sum(count) from order_item"), count("select sum(quantity) from daily_item_sales"));
+        assertEquals(count("select sum(cast(order_price as bigint) * count) from order_item")
+                , count("select sum(revenue) from daily_item_sales"));
+        assertEquals(count("select sum(oi.count) from order_item oi join ordes o on o.order_id = oi.order_id where o.status = 'CANCEL'")
+                , count("select sum(quantity) from daily_item_sales where status = 'CANCEL'"));
+    }
+
+    @DisplayName("데이터 생성 - 상품 인기도 편중")
+    @Test
+    public void 상품_인기도_편중() throws Exception{
+        long orderItems = count("select count(*) from order_item");
+        long top = count("select max(c) from (select count(*) c from order_item group by item_id)");
+
+        //균등 분포라면 상품 하나당 1/30 이다.
+        assertTrue(top > orderItems / 30 * 3, "가장 많이 팔린 상품 = " + top + " / " + orderItems);
+    }
+
+    @DisplayName("데이터 생성 - 이후 persist 아이디 충돌 없음")
+    @Test
+    public void 이후_persist_아이디_충돌없음() throws Exception{
+        //given
+        Member member = new Member();
+        member.setName("after-seed");
+
+        //when
+        Long memberId = memberService.join(member);
+        em.flush();
+
+        //then
+        assertEquals(201, count("select count(*) from member"));
+        assertEquals(1, count("select count(*) from member where member_id = " + memberId));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
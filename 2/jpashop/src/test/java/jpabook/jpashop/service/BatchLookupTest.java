@@ -0,0 +1,96 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.BatchLookup;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.support.ExpectedQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("서비스 로직 - in 쿼리 버킷 조회")
+@SpringBootTest
+@Transactional
+class BatchLookupTest {
+    private final MemberRepository memberRepository;
+    private final EntityManager em;
+
+    private List<Long> memberIds;
+
+    @Autowired
+    public BatchLookupTest(MemberRepository memberRepository, EntityManager em) {
+        this.memberRepository = memberRepository;
+        this.em = em;
+    }
+
+    @BeforeEach
+    void setUp() {
+        memberIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Member member = new Member();
+            member.setName("버킷-" + i + "-" + System.nanoTime());
+            em.persist(member);
+            memberIds.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @DisplayName("버킷 - 중복을 제거하고 1024개씩 나눠서 버킷 크기까지 마지막 키로 채운다.")
+    @Test
+    public void 버킷_나누기() throws Exception{
+        //given - 중복 포함 2500개
+        List<Long> keys = new ArrayList<>(LongStream.rangeClosed(1, 2500).boxed().toList());
+        keys.add(1L);
+        List<List<Long>> chunks = new ArrayList<>();
+
+        //when
+        List<Long> result = BatchLookup.findAll(keys, chunk -> {
+            chunks.add(chunk);
+            return chunk.stream().distinct().toList();
+        });
+
+        //then
+        assertEquals(LongStream.rangeClosed(1, 2500).boxed().toList(), result);
+        assertEquals(List.of(1024, 1024, 1024), chunks.stream().map(List::size).toList());
+        assertEquals(2500L, chunks.get(2).get(1023), "남는 자리는 청크의 마지막 키로 채운다.");
+    }
+
+    @DisplayName("버킷 - 작은 목록은 가장 작은 버킷(16), 빈 목록은 조회하지 않는다.")
+    @Test
+    public void 작은_목록() throws Exception{
+        List<Integer> sizes = new ArrayList<>();
+
+        BatchLookup.findAll(List.of(1L, 2L, 3L), chunk -> { sizes.add(chunk.size()); return List.of(); });
+        BatchLookup.findAll(LongStream.rangeClosed(1, 17).boxed().toList(), chunk -> { sizes.add(chunk.size()); return List.of(); });
+        BatchLookup.findAll(List.<Long>of(), chunk -> { sizes.add(chunk.size()); return List.of(); });
+
+        assertEquals(List.of(16, 64), sizes);
+    }
+
+    @DisplayName("버킷 - 채운 키가 있어도 조회 결과는 같다.")
+    @Test
+    @ExpectedQueries(max = 1)
+    public void 회원_조회() throws Exception{
+        //given
+        List<Long> ids = new ArrayList<>(memberIds);
+        ids.add(memberIds.get(0));
+
+        //when
+        List<Member> members = memberRepository.findAllByIds(ids);
+
+        //then
+        assertEquals(3, members.size());
+        assertEquals(memberIds.stream().sorted().toList(), members.stream().map(Member::getId).sorted().toList());
+    }
+}
@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.support.ExpectedQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 트리 스냅샷은 커밋 후에 다시 만들어지기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 카테고리")
+@SpringBootTest
+class CategoryServiceTest {
+    private final CategoryService categoryService;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    private Long rootId;
+    private Long childId;
+    private Long grandChildId;
+    private Long otherRootId;
+
+    @Autowired
+    public CategoryServiceTest(CategoryService categoryService, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.categoryService = categoryService;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /* 도서 > 소설 > 추리소설, 음반 */
+    @BeforeEach
+    void setUp() {
+        rootId = categoryService.addCategory("도서", null);
+        childId = categoryService.addCategory("소설", rootId);
+        grandChildId = categoryService.addCategory("추리소설", childId);
+        otherRootId = categoryService.addCategory("음반", null);
+        addItem(rootId, "BOOK");
+        addItem(grandChildId, "MYSTERY");
+        addItem(otherRootId, "ALBUM");
+    }
+
+    @DisplayName("카테고리 - 추가하면 상위 카테고리 경로가 저장된다.")
+    @Test
+    public void 카테고리추가_경로() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(Category.ROOT_PATH, em.find(Category.class, rootId).getPath());
+            assertEquals("/" + rootId + "/", em.find(Category.class, childId).getPath());
+            assertEquals("/" + rootId + "/" + childId + "/", em.find(Category.class, grandChildId).getPath());
+        });
+    }
+
+    @DisplayName("카테고리 - 하위 카테고리 전체를 쿼리 한번으로 조회")
+    @Test
+    @ExpectedQueries(max = 2)
+    public void 하위카테고리_조회() throws Exception{
+        List<Long> ids = transactionTemplate.execute(status -> categoryService.findDescendants(rootId).stream()
+                .map(Category::getId)
+                .toList());
+
+        assertEquals(List.of(childId, grandChildId), ids);
+    }
+
+    @DisplayName("카테고리 - 하위 카테고리의 상품까지 쿼리 한번으로 조회")
+    @Test
+    @ExpectedQueries(max = 2)
+    public void 하위카테고리_상품조회() throws Exception{
+        List<String> names = transactionTemplate.execute(status -> categoryService.findItemsInSubtree(rootId).stream()
+                .map(Item::getName)
+                .toList());
+
+        assertEquals(List.of("BOOK", "MYSTERY"), names, "다른 루트 카테고리의 상품은 포함되지 않는다.");
+    }
+
+    @DisplayName("카테고리 - 추가가 커밋되면 트리 스냅샷이 교체된다.")
+    @Test
+    public void 트리스냅샷_교체() throws Exception{
+        //given
+        CategoryTree before = categoryService.getTree();
+        assertEquals(List.of(rootId, childId, grandChildId), before.subtreeIds(rootId));
+
+        //when
+        Long newChildId = categoryService.addCategory("에세이", rootId);
+
+        //then - 이전 스냅샷은 그대로, 새 스냅샷에 추가된 카테고리가 보인다.
+        CategoryTree after = categoryService.getTree();
+        assertNotSame(before, after);
+        assertTrue(before.find(newChildId).isEmpty());
+        CategoryTree.Node node = after.find(newChildId).orElseThrow();
+        assertEquals(rootId, node.parentId());
+        assertEquals(1, node.depth());
+        assertSame(after, categoryService.getTree(), "변경이 없으면 같은 스냅샷을 재사용한다.");
+    }
+
+    @DisplayName("카테고리 - 없는 상위 카테고리")
+    @Test
+    public void 없는상위카테고리() throws Exception{
+        assertThrows(IllegalArgumentException.class, () -> categoryService.addCategory("없음", -1L));
+    }
+
+    private void addItem(Long categoryId, String name) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Book book = new Book();
+            book.setName(name);
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            em.find(Category.class, categoryId).getItems().add(book);
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.controller.BookForm;
+import jpabook.jpashop.controller.ItemController;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.ItemBulkUpdateDto;
+import jpabook.jpashop.dto.ItemPatch;
+import jpabook.jpashop.dto.ItemSearchDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 2차 캐시와 검색 색인은 커밋 후에 반영되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 상품 부분/일괄 수정")
+@SpringBootTest
+class ItemBulkUpdateTest {
+    private final ItemService itemService;
+    private final StockService stockService;
+    private final OrderService orderService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemController itemController;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ItemBulkUpdateTest(ItemService itemService, StockService stockService, OrderService orderService, ItemSearchIndex itemSearchIndex
+            , ItemController itemController, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.itemService = itemService;
+        this.stockService = stockService;
+        this.orderService = orderService;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemController = itemController;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @DisplayName("부분 수정 - 요청한 항목만 변경")
+    @Test
+    public void 부분수정() throws Exception{
+        //given
+        String key = "p" + UUID.randomUUID().toString().replace("-", "");
+        Book book = new Book();
+        book.setName(key);
+        book.setAuthor("김영한");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        Long itemId = itemService.saveItem(book);
+
+        //when
+        itemService.patchItem(itemId, ItemPatch.ofPrice(12000));
+
+        //then
+        Book found = (Book) findItem(itemId);
+        assertEquals(key, found.getName());
+        assertEquals("김영한", found.getAuthor());
+        assertEquals(12000, found.getPrice());
+        assertEquals(10, found.getStockQuantity());
+        assertEquals(12000, itemSearchIndex.search(key, 1).get(0).price(), "검색 색인에도 반영");
+    }
+
+    @DisplayName("부분 수정 - 상품 종류에 없는 항목은 변경할 수 없다.")
+    @Test
+    public void 부분수정_다른종류항목() throws Exception{
+        Long itemId = createBooks(1, 10).get(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> itemService.patchItem(itemId, ItemPatch.of(null, null, null, null, null, "artist", null, null)));
+    }
+
+    @DisplayName("화면 수정 - 폼을 연 뒤에 들어온 주문의 재고 차감은 가격만 수정해도 유지된다.")
+    @Test
+    public void 화면수정_주문재고유지() throws Exception{
+        //given
+        Long itemId = createBooks(1, 10).get(0);
+        BookForm form = editForm(itemId);
+        orderService.order(createMember(), itemId, 3);
+
+        //when
+        form.setPrice(12000);
+        String view = itemController.updateItem(form, new BeanPropertyBindingResult(form, "form"));
+
+        //then
+        assertEquals("redirect:/items", view);
+        Item found = findItem(itemId);
+        assertEquals(12000, found.getPrice());
+        assertEquals(7, found.getStockQuantity());
+    }
+
+    @DisplayName("화면 수정 - 폼을 연 뒤에 주문이 들어왔으면 재고 수정은 실패하고 현재 재고를 다시 보여준다.")
+    @Test
+    public void 화면수정_재고충돌() throws Exception{
+        //given
+        Long itemId = createBooks(1, 10).get(0);
+        BookForm form = editForm(itemId);
+        orderService.order(createMember(), itemId, 3);
+
+        //when
+        form.setPrice(12000);
+        form.setStockQuantity(20);
+        BindingResult result = new BeanPropertyBindingResult(form, "form");
+        String view = itemController.updateItem(form, result);
+
+        //then - 같은 폼에 현재 재고와 버전을 채워서 다시 보여준다.
+        assertEquals("items/updateItemForm", view);
+        assertTrue(result.hasGlobalErrors());
+        Item found = findItem(itemId);
+        assertEquals(10000, found.getPrice());
+        assertEquals(7, found.getStockQuantity());
+        assertEquals(7, form.getStockQuantity());
+        assertEquals(found.getVersion(), form.getVersion());
+    }
+
+    @DisplayName("가격 일괄 수정 - 캐시와 영속성 컨텍스트에 이전 가격이 남지 않는다.")
+    @Test
+    public void 가격일괄수정() throws Exception{
+        //given - 2차 캐시에 올라간 상품 1000개
+        List<Long> itemIds = createBooks(1000, 10);
+        itemIds.forEach(this::findItem);
+        Map<Long, Integer> prices = new HashMap<>();
+        itemIds.forEach(id -> prices.put(id, 20000));
+
+        //when - 같은 트랜잭션에서 이미 조회한 상품
+        Item managed = transactionTemplate.execute(status -> {
+            Item item = em.find(Item.class, itemIds.get(0));
+            assertEquals(1000, itemService.bulkUpdatePrices(prices));
+            return item;
+        });
+
+        //then
+        assertEquals(20000, managed.getPrice(), "영속성 컨텍스트의 상품은 다시 조회된다.");
+        assertEquals(20000, findItem(itemIds.get(999)).getPrice(), "2차 캐시의 이전 가격을 사용하지 않는다.");
+    }
+
+    @DisplayName("CSV 일괄 수정 - 가격, 재고 (재고가 분할된 상품의 재고는 제외)")
+    @Test
+    public void CSV일괄수정() throws Exception{
+        //given
+        List<Long> itemIds = createBooks(2, 10);
+        Long shardedId = createBooks(1, 10).get(0);
+        stockService.enableSharding(shardedId, 2);
+        String csv = "itemId,stockQuantity,price\n"
+                + itemIds.get(0) + ",50,15000\n"
+                + itemIds.get(1) + ",,16000\n"
+                + "\n"
+                + shardedId + ",99,\n";
+
+        //when
+        ItemBulkUpdateDto result = itemService.bulkUpdate(ItemBulkCsv.parse(new BufferedReader(new StringReader(csv))));
+
+        //then
+        assertEquals(ItemBulkUpdateDto.of(2, 1), result);
+        assertEquals(50, findItem(itemIds.get(0)).getStockQuantity());
+        assertEquals(15000, findItem(itemIds.get(0)).getPrice());
+        assertEquals(10, findItem(itemIds.get(1)).getStockQuantity());
+        assertEquals(16000, findItem(itemIds.get(1)).getPrice());
+        int shardedStock = transactionTemplate.execute(status -> em.find(Item.class, shardedId).getStockQuantity());
+        assertEquals(10, shardedStock);
+    }
+
+    @DisplayName("CSV 일괄 수정 - 형식 오류")
+    @Test
+    public void CSV형식오류() throws Exception{
+        assertThrows(IllegalArgumentException.class, () -> parse("id,price\n1,100"));
+        assertThrows(IllegalArgumentException.class, () -> parse("itemId,price\n1,abc"));
+        assertThrows(IllegalArgumentException.class, () -> parse("itemId,price\n1,-1"));
+        assertThrows(IllegalArgumentException.class, () -> parse("itemId,price\n1,100\n1,200"));
+    }
+
+    private ItemBulkCsv parse(String csv) {
+        return ItemBulkCsv.parse(new BufferedReader(new StringReader(csv)));
+    }
+
+    /* 수정 폼을 열 때 화면에 담기는 값 */
+    private BookForm editForm(Long itemId) {
+        Model model = new ExtendedModelMap();
+        itemController.updateItemForm(itemId, model);
+        return (BookForm) model.getAttribute("form");
+    }
+
+    private Long createMember() {
+        return transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("화면수정-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Item findItem(Long itemId) {
+        return transactionTemplate.execute(status -> em.find(Item.class, itemId));
+    }
+
+    private List<Long> createBooks(int count, int stockQuantity) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Book book = new Book();
+                book.setName("BULK" + i);
+                book.setPrice(10000);
+                book.setStockQuantity(stockQuantity);
+                em.persist(book);
+                ids.add(book.getId());
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.dto.ItemListDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("서비스 로직 - 상품 목록")
+@SpringBootTest
+@Transactional
+class ItemPageTest {
+    private final ItemService itemService;
+    private final StockService stockService;
+    private final EntityManager em;
+
+    @Autowired
+    public ItemPageTest(ItemService itemService, StockService stockService, EntityManager em) {
+        this.itemService = itemService;
+        this.stockService = stockService;
+        this.em = em;
+    }
+
+    @DisplayName("상품 목록 - 정렬 조건으로 한 페이지의 DTO를 조회")
+    @Test
+    public void 상품목록_페이지() throws Exception{
+        //given - 가격이 가장 높은 상품 3개
+        Long first = createBook("A", Integer.MAX_VALUE, 10);
+        Long second = createBook("B", Integer.MAX_VALUE - 1, 20);
+        Long third = createBook("C", Integer.MAX_VALUE - 2, 30);
+        long total = em.createQuery("select count(i) from Item i", Long.class).getSingleResult();
+
+        //when
+        Page<ItemListDto> page = itemService.findItemPage(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "price")));
+        Page<ItemListDto> next = itemService.findItemPage(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        //then
+        assertEquals(List.of(ItemListDto.of(first, "A", Integer.MAX_VALUE, 10), ItemListDto.of(second, "B", Integer.MAX_VALUE - 1, 20))
+                , page.getContent());
+        assertEquals(third, next.getContent().get(0).id());
+        assertEquals(total, page.getTotalElements());
+    }
+
+    @DisplayName("상품 목록 - 허용하지 않은 정렬 조건은 무시하고 아이디순으로 조회")
+    @Test
+    public void 상품목록_정렬조건무시() throws Exception{
+        createBook("A", 1000, 10);
+        createBook("B", 1000, 10);
+
+        List<ItemListDto> content = itemService.findItemPage(PageRequest.of(0, 100, Sort.by("categories"))).getContent();
+
+        List<Long> ids = content.stream().map(ItemListDto::id).toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @DisplayName("상품 목록 - 재고가 분할된 상품은 shard 합계를 재고로 표시")
+    @Test
+    public void 상품목록_분할재고() throws Exception{
+        //given
+        Long itemId = createBook("HOT", Integer.MAX_VALUE, 10);
+        em.flush();
+        stockService.enableSharding(itemId, 4);
+
+        //when
+        ItemListDto dto = itemService.findItemPage(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "price"))).getContent().get(0);
+
+        //then
+        assertEquals(itemId, dto.id());
+        assertEquals(10, dto.stockQuantity());
+    }
+
+    @DisplayName("상품 목록 - 재고 정렬은 표시하는 재고(분할된 상품은 shard 합계) 기준")
+    @Test
+    public void 상품목록_분할재고_정렬() throws Exception{
+        //given - 재고가 가장 많은 상품 2개, 분할된 상품의 stockQuantity 컬럼은 0
+        Long sharded = createBook("HOT", 1000, Integer.MAX_VALUE - 1);
+        Long plain = createBook("PLAIN", 1000, Integer.MAX_VALUE - 2);
+        em.flush();
+        stockService.enableSharding(sharded, 4);
+
+        //when
+        List<ItemListDto> content = itemService.findItemPage(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "stockQuantity"))).getContent();
+
+        //then
+        assertEquals(List.of(sharded, plain), content.stream().map(ItemListDto::id).toList());
+        assertEquals(Integer.MAX_VALUE - 1, content.get(0).stockQuantity());
+    }
+
+    private Long createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book.getId();
+    }
+}
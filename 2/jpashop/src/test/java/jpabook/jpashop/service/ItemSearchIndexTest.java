@@ -0,0 +1,110 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.dto.ItemSearchDto;
+import jpabook.jpashop.support.ExpectedQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 색인은 커밋 후에 반영되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다.
+* 다른 테스트의 상품과 섞이지 않도록 테스트마다 다른 검색어(key)를 사용한다. */
+@DisplayName("서비스 로직 - 상품 검색")
+@SpringBootTest
+class ItemSearchIndexTest {
+    private final ItemService itemService;
+    private final ItemSearchIndex itemSearchIndex;
+
+    private String key;
+    private Long bookId;
+    private Long albumId;
+    private Long movieId;
+
+    @Autowired
+    public ItemSearchIndexTest(ItemService itemService, ItemSearchIndex itemSearchIndex) {
+        this.itemService = itemService;
+        this.itemSearchIndex = itemSearchIndex;
+    }
+
+    @BeforeEach
+    void setUp() {
+        key = "k" + UUID.randomUUID().toString().replace("-", "");
+
+        Book book = new Book();
+        book.setName(key + " JPA 프로그래밍");
+        book.setAuthor("김영한");
+        book.setIsbn("978-89-" + key);
+        book.setPrice(10000);
+        bookId = itemService.saveItem(book);
+
+        Album album = new Album();
+        album.setName("Best of");
+        album.setArtist(key + " band");
+        album.setPrice(20000);
+        albumId = itemService.saveItem(album);
+
+        Movie movie = new Movie();
+        movie.setName("Spring Movie");
+        movie.setDirector("director");
+        movie.setActor(key);
+        movie.setPrice(30000);
+        movieId = itemService.saveItem(movie);
+    }
+
+    @DisplayName("상품 검색 - 필드 가중치 순으로 정렬하고 DB를 조회하지 않는다.")
+    @Test
+    @ExpectedQueries(max = 0)
+    public void 상품검색_점수순() throws Exception{
+        List<ItemSearchDto> result = itemSearchIndex.search(key, 10);
+
+        //상품명(3) > 가수(2) > 배우(1)
+        assertEquals(List.of(bookId, albumId, movieId), result.stream().map(ItemSearchDto::itemId).toList());
+        assertEquals("Book", result.get(0).type());
+    }
+
+    @DisplayName("상품 검색 - 모든 단어가 포함된 상품만, 단어 앞부분만 일치해도 검색")
+    @Test
+    public void 상품검색_여러단어_접두어() throws Exception{
+        assertEquals(List.of(bookId), ids(key.toUpperCase() + " 프로그"));
+        assertEquals(List.of(albumId), ids(key + " ban"));
+        assertEquals(List.of(bookId), ids("97889" + key), "ISBN은 하이픈 없이 검색");
+        assertTrue(ids(key + " 없는단어").isEmpty());
+        assertTrue(itemSearchIndex.search(" - ", 10).isEmpty());
+    }
+
+    @DisplayName("상품 검색 - 상품을 수정하면 커밋 후 색인이 바뀐다.")
+    @Test
+    public void 상품수정_색인반영() throws Exception{
+        //given
+        String newKey = "n" + UUID.randomUUID().toString().replace("-", "");
+        Book param = new Book();
+        param.setName(newKey + " 스프링");
+        param.setAuthor("김영한");
+        param.setPrice(15000);
+        param.setStockQuantity(5);
+
+        //when
+        itemService.updateItem(bookId, param, 0);
+
+        //then - 이전 상품명으로는 검색되지 않는다.
+        assertEquals(List.of(albumId, movieId), ids(key));
+        List<ItemSearchDto> result = itemSearchIndex.search(newKey, 10);
+        assertEquals(1, result.size());
+        assertEquals(15000, result.get(0).price());
+    }
+
+    private List<Long> ids(String query) {
+        return itemSearchIndex.search(query, 10).stream()
+                .map(ItemSearchDto::itemId)
+                .toList();
+    }
+}
@@ -0,0 +1,231 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.ItemStockShardRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 여러 스레드가 각자 트랜잭션으로 주문하기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 재고")
+@SpringBootTest
+class ItemStockTest {
+    private final OrderService orderService;
+    private final StockService stockService;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ItemRepository itemRepository;
+    private final ItemStockShardRepository itemStockShardRepository;
+
+    @Autowired
+    public ItemStockTest(OrderService orderService, StockService stockService, EntityManager em
+            , PlatformTransactionManager transactionManager, MeterRegistry meterRegistry
+            , ItemRepository itemRepository, ItemStockShardRepository itemStockShardRepository) {
+        this.orderService = orderService;
+        this.stockService = stockService;
+        this.itemRepository = itemRepository;
+        this.itemStockShardRepository = itemStockShardRepository;
+        this.em = em;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @DisplayName("재고 - 동시 주문시 재고 유실 없음")
+    @Test
+    public void 동시주문_재고유실없음() throws Exception{
+        //given - 재고 100, 8개 스레드에서 1개씩 200번 주문
+        Long memberId = createMember();
+        Long itemId = createBook(100);
+
+        //when, then
+        orderConcurrently(memberId, itemId);
+    }
+
+    @DisplayName("재고 - 분할된 재고 동시 주문시 재고 유실 없음")
+    @Test
+    public void 분할재고_동시주문_재고유실없음() throws Exception{
+        //given - 재고 100을 4개로 분할
+        Long memberId = createMember();
+        Long itemId = createBook(100);
+        stockService.enableSharding(itemId, 4);
+
+        //when, then
+        orderConcurrently(memberId, itemId);
+        transactionTemplate.executeWithoutResult(status -> {
+            Item item = em.find(Item.class, itemId);
+            assertTrue(item.isShardedStock());
+            assertEquals(4, item.getStockShards().size());
+        });
+    }
+
+    @DisplayName("재고 - 분할된 재고 여러 shard에서 나눠서 차감")
+    @Test
+    public void 분할재고_여러shard_차감() throws Exception{
+        //given - 재고 10을 4개로 분할 (3, 3, 2, 2)
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        stockService.enableSharding(itemId, 4);
+
+        //when - shard 하나의 재고보다 많이 주문
+        orderService.order(memberId, itemId, 7);
+
+        //then
+        assertEquals(3, stockOf(itemId));
+        assertThrows(NotEnoughStockException.class, () -> orderService.order(memberId, itemId, 4));
+        assertEquals(3, stockOf(itemId), "재고가 부족한 주문은 재고를 바꾸지 않아야 한다.");
+    }
+
+    @DisplayName("재고 - 다른 서버에서 분할한 상품도 shard에서 차감")
+    @Test
+    public void 다른서버_분할재고_차감() throws Exception{
+        //given - 이 서버에서 한번 주문한 뒤, 다른 서버(별도 StockService)에서 재고를 분할
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.order(memberId, itemId, 1);
+        StockService otherNode = new StockService(itemRepository, itemStockShardRepository);
+        transactionTemplate.executeWithoutResult(status -> otherNode.enableSharding(itemId, 3));
+
+        //when
+        orderService.order(memberId, itemId, 2);
+        Long orderId = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertEquals(7, stockOf(itemId), "item row 재고(0)로 품절 처리되지 않고 shard에서 차감, 복구되어야 한다.");
+    }
+
+    @DisplayName("재고 - 동시 취소시 재고 한번만 복구")
+    @Test
+    public void 동시취소_재고한번만복구() throws Exception{
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long orderId = orderService.order(memberId, itemId, 3);
+        double calls = cancelCalls();
+
+        AtomicInteger canceled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when - 같은 주문을 동시에 4번 취소
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    orderService.cancelOrder(orderId);
+                    canceled.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(1, canceled.get(), "한번만 취소되어야 한다.");
+        assertEquals(3, rejected.get());
+        assertEquals(10, stockOf(itemId), "재고는 한번만 복구되어야 한다.");
+        assertEquals(calls + 4, cancelCalls(), "메서드별 호출 수가 기록되어야 한다.");
+    }
+
+    /* 재고 100인 상품을 8개 스레드에서 1개씩 200번 주문 - 정확히 100번만 성공해야 한다. */
+    private void orderConcurrently(Long memberId, Long itemId) throws Exception {
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    orderService.order(memberId, itemId, 1);
+                    ordered.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    soldOut.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, ordered.get(), "재고 만큼만 주문되어야 한다.");
+        assertEquals(100, soldOut.get());
+        assertEquals(0, stockOf(itemId));
+    }
+
+    @DisplayName("재고 - 재고 부족시 수량 변경 없음")
+    @Test
+    public void 재고부족_수량변경없음() throws Exception{
+        //given
+        Book book = new Book();
+        book.setStockQuantity(10);
+
+        //when
+        assertThrows(NotEnoughStockException.class, () -> book.removeStock(11));
+
+        //then
+        assertEquals(10, book.getStockQuantity(), "예외가 발생하면 재고가 바뀌지 않아야 한다.");
+    }
+
+    private double cancelCalls() {
+        Counter counter = meterRegistry.find("jpashop.optimistic-lock.calls")
+                .tag("method", "OrderService.cancelOrder")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private int stockOf(Long itemId) {
+        return transactionTemplate.execute(status -> em.find(Item.class, itemId).getStockQuantity());
+    }
+
+    private Long createMember() {
+        return transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("재고-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Long createBook(int stockQuantity) {
+        return transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("HOT");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.dto.MemberImportDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 여러 스레드가 각자 트랜잭션으로 가입하고 블룸 필터는 커밋 후에 반영되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 회원가입 중복 검사")
+@SpringBootTest
+class MemberJoinTest {
+    private final MemberService memberService;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MemberJoinTest(MemberService memberService, MeterRegistry meterRegistry) {
+        this.memberService = memberService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @DisplayName("회원가입 - 같은 이름으로 동시에 가입하면 한명만 성공")
+    @Test
+    public void 동시가입_중복() throws Exception{
+        //given
+        String name = "동시-" + UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    memberService.join(member(name));
+                    joined.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(1, joined.get());
+        assertEquals(7, rejected.get());
+    }
+
+    @DisplayName("회원가입 - 필터에 없는 이름은 중복 조회를 생략하고, 가입 후에는 조회한다.")
+    @Test
+    public void 필터_중복조회생략() throws Exception{
+        //given
+        String name = "필터-" + UUID.randomUUID();
+        double skipped = count("skipped");
+        double checked = count("checked");
+
+        //when
+        memberService.join(member(name));
+
+        //then
+        assertEquals(skipped + 1, count("skipped"));
+        assertThrows(IllegalStateException.class, () -> memberService.join(member(name)));
+        assertEquals(checked + 1, count("checked"), "커밋된 이름은 필터에 추가된다.");
+    }
+
+    @DisplayName("대량 가입 - 이미 가입된 이름과 목록 안의 중복은 건너뛴다.")
+    @Test
+    public void 대량가입() throws Exception{
+        //given
+        String prefix = "대량가입-" + UUID.randomUUID() + "-";
+        memberService.join(member(prefix + "existing"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            members.add(member(prefix + i));
+        }
+        members.add(member(prefix + "0"));
+        members.add(member(prefix + "existing"));
+
+        //when
+        MemberImportDto result = memberService.importMembers(members);
+
+        //then
+        assertEquals(2500, result.imported());
+        assertEquals(List.of(prefix + "0", prefix + "existing"), result.duplicates());
+        assertThrows(IllegalStateException.class, () -> memberService.join(member(prefix + "1234")));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("jpashop.member.name-filter").tag("result", result).counter().count();
+    }
+
+    private Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "한강", "123-45"));
+        return member;
+    }
+}
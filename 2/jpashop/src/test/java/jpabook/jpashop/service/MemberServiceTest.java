@@ -1,14 +1,21 @@
 package jpabook.jpashop.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberField;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.SparseField;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("서비스 로직 - 회원")
@@ -20,15 +27,18 @@ class MemberServiceTest {
     private final MemberService memberService;
     private final MemberRepository memberRepository;
     private final EntityManager em;
+    private final ObjectMapper objectMapper;
 
     @Autowired
     public MemberServiceTest(MemberService memberService
             , MemberRepository memberRepository
             , EntityManager em
+            , ObjectMapper objectMapper
     ) {
         this.memberService = memberService;
         this.memberRepository = memberRepository;
         this.em = em;
+        this.objectMapper = objectMapper;
     }
 
     @DisplayName("회원 - 회원가입")
@@ -91,6 +101,29 @@ class MemberServiceTest {
         //then
     }
 
+    @DisplayName("회원 - 부분 조회는 요청한 필드만 요청 순서대로 응답한다.")
+    @Test
+    public void 부분_조회() throws Exception{
+        //given
+        Member member = new Member();
+        member.setName("부분-" + System.nanoTime());
+        member.setAddress(new Address("서울", "한강", "123-45"));
+        memberService.join(member);
+        em.flush();
+
+        //when
+        List<MemberField> fields = SparseField.parse(MemberField.class, "city, name,city");
+        Tuple tuple = memberService.findMembers(fields).stream()
+                .filter(t -> member.getName().equals(t.get("name")))
+                .findFirst()
+                .orElseThrow();
+
+        //then
+        assertEquals(List.of(MemberField.CITY, MemberField.NAME), fields);
+        assertEquals("{\"city\":\"서울\",\"name\":\"" + member.getName() + "\"}", objectMapper.writeValueAsString(tuple));
+        assertThrows(IllegalArgumentException.class, () -> SparseField.parse(MemberField.class, "name,createdBy"));
+    }
+
     /*
     private MemberDto createMemberDto(){
         return MemberDto.of(1L, "Kim", careateAddressDto(), createOrderDto(), LocalDateTime.now(), "YUNI", LocalDateTime.now(), "YUNI");
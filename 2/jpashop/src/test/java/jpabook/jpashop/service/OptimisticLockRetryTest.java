@@ -0,0 +1,103 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.retry.RetryOnOptimisticLock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 재시도는 프록시(OptimisticLockRetryAspect -> 트랜잭션 AOP)를 거쳐야 동작하므로 스프링 빈을 통해 호출한다.
+* 재시도마다 새 트랜잭션에서 실행되는지 확인하기 위해 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 낙관적 락 재시도")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:retry")//테스트 빈이 추가된 별도 컨텍스트 - 다른 컨텍스트의 데이터베이스와 분리
+class OptimisticLockRetryTest {
+    private final ConflictingService conflictingService;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public OptimisticLockRetryTest(ConflictingService conflictingService, MeterRegistry meterRegistry) {
+        this.conflictingService = conflictingService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @DisplayName("낙관적 락 재시도 - 충돌하면 새 트랜잭션으로 다시 실행한다.")
+    @Test
+    public void 충돌_재시도() throws Exception{
+        //given
+        double conflicts = conflicts();
+        conflictingService.reset(2);
+
+        //when
+        String result = conflictingService.update();
+
+        //then
+        assertTrue(AopUtils.isAopProxy(conflictingService));
+        assertEquals("OK", result);
+        assertEquals(List.of(true, true, true), conflictingService.transactions(), "두번 충돌 후 세번째 실행에서 성공해야 하고, 매번 트랜잭션 안에서 실행되어야 한다.");
+        assertEquals(conflicts + 2, conflicts());
+    }
+
+    @DisplayName("낙관적 락 재시도 - maxAttempts 만큼 실패하면 예외를 그대로 던진다.")
+    @Test
+    public void 재시도_실패() throws Exception{
+        //given
+        conflictingService.reset(10);
+
+        //when
+        assertThrows(ObjectOptimisticLockingFailureException.class, conflictingService::update);
+
+        //then
+        assertEquals(3, conflictingService.transactions().size());
+    }
+
+    private double conflicts() {
+        return meterRegistry.counter("jpashop.optimistic-lock.conflicts", "method", "ConflictingService.update").count();
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ConflictingService conflictingService() {
+            return new ConflictingService();
+        }
+    }
+
+    /* failures 번 만큼 낙관적 락 충돌을 던지고 이후에는 성공한다.
+    * 필드는 프록시가 아닌 대상 객체에 있으므로 메서드로만 접근한다. */
+    static class ConflictingService {
+        private final List<Boolean> transactions = new ArrayList<>();
+        private int failures;
+
+        public void reset(int failures) {
+            this.transactions.clear();
+            this.failures = failures;
+        }
+
+        /* 실행마다 트랜잭션이 있었는지 */
+        public List<Boolean> transactions() {
+            return List.copyOf(transactions);
+        }
+
+        @RetryOnOptimisticLock(backoffMillis = 1, maxBackoffMillis = 1)
+        @Transactional
+        public String update() {
+            transactions.add(TransactionSynchronizationManager.isActualTransactionActive());
+            if (failures-- > 0) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "OK";
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.dto.BulkOrderDto;
+import jpabook.jpashop.dto.OrderCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* placeOrders는 청크마다 별도 트랜잭션으로 커밋하기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 대량 주문")
+@SpringBootTest
+class OrderBulkTest {
+    private final OrderService orderService;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    private Long memberId;
+    private Long bookId1;
+    private Long bookId2;
+
+    @Autowired
+    public OrderBulkTest(OrderService orderService, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("대량-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+
+            Book book1 = createBook("BULK1", 10000, 1000);
+            Book book2 = createBook("BULK2", 20000, 1000);
+
+            memberId = member.getId();
+            bookId1 = book1.getId();
+            bookId2 = book2.getId();
+        });
+    }
+
+    @DisplayName("대량 주문 - 여러 청크")
+    @Test
+    public void 대량주문() throws Exception{
+        //given
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            commands.add(OrderCommand.of(memberId, List.of(
+                    new OrderCommand.Line(bookId1, 1),
+                    new OrderCommand.Line(bookId2, 2))));
+        }
+
+        //when
+        BulkOrderDto result = orderService.placeOrders(commands);
+
+        //then
+        List<Long> orderIds = result.orderIds();
+        assertNull(result.failedChunk());
+        assertEquals(250, orderIds.size());
+        assertEquals(250, new HashSet<>(orderIds).size(), "주문 아이디는 중복되지 않아야 한다.");
+        assertEquals(250, countOrders());
+        assertEquals(1000 - 250, stockOf(bookId1));
+        assertEquals(1000 - 500, stockOf(bookId2));
+    }
+
+    @DisplayName("대량 주문 - 실패한 청크만 롤백하고 커밋된 주문 아이디와 실패한 범위를 반환")
+    @Test
+    public void 실패한_청크만_롤백() throws Exception{
+        //given - 기본 청크 크기 100, 121번째 주문의 상품이 없다. 마지막 청크는 처리하지 않는다.
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            commands.add(OrderCommand.of(memberId, i == 120 ? -1L : bookId1, 1));
+        }
+
+        //when
+        BulkOrderDto result = orderService.placeOrders(commands);
+
+        //then
+        assertEquals(100, result.orderIds().size(), "앞서 커밋된 청크의 주문 아이디를 반환해야 한다.");
+        assertEquals(new BulkOrderDto.FailedChunk(100, 200, "존재하지 않는 상품입니다. id=-1"), result.failedChunk());
+        assertEquals(100, countOrders(), "앞서 커밋된 청크는 유지되어야 한다.");
+        assertEquals(1000 - 100, stockOf(bookId1));
+    }
+
+    private long countOrders() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                        "select count(o) from Order o where o.member.id = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult());
+    }
+
+    private int stockOf(Long itemId) {
+        return transactionTemplate.execute(status -> em.find(Item.class, itemId).getStockQuantity());
+    }
+
+    private Book createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+
+        em.persist(book);
+
+        return book;
+    }
+}
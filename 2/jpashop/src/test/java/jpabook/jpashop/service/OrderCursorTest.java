@@ -0,0 +1,153 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderExpand;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("서비스 로직 - 주문 키셋 페이징")
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderCursorTest {
+    /* 다른 테스트의 주문(현재 시각)과 섞이지 않는 주문일 - 이 테스트의 주문은 모두 같은 주문일이다. */
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(1999, 12, 31, 23, 59, 59);
+
+    private final OrderRepository orderRepository;
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final EntityManager em;
+
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @Autowired
+    public OrderCursorTest(OrderRepository orderRepository, MockMvc mockMvc, ObjectMapper objectMapper, EntityManager em) {
+        this.orderRepository = orderRepository;
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.em = em;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("키셋-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "한강", "123-45"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("CURSOR");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+
+        for (int i = 0; i < 5; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+            order.setOrderDate(ORDER_DATE);
+            em.persist(order);
+            orderIds.add(order.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @DisplayName("키셋 페이징 - 주문일이 같은 주문도 빠지거나 중복되지 않고 주문 아이디 순으로 이어진다.")
+    @Test
+    public void 같은주문일_페이지_이어보기() throws Exception{
+        for (String expand : List.of("", "member,delivery,items")) {
+            //when - 2건씩 다음 커서로 넘어가면서 조회
+            List<Long> walked = new ArrayList<>();
+            OrderCursor cursor = start();
+            while (true) {
+                List<Order> page = orderRepository.findAll(OrderExpand.parse(expand), cursor, 2);
+                List<Order> sameDate = page.stream().filter(order -> order.getOrderDate().equals(ORDER_DATE)).toList();
+                sameDate.forEach(order -> walked.add(order.getId()));
+                if (page.size() < 2 || sameDate.size() < page.size()) {
+                    break;
+                }
+                cursor = OrderCursor.from(page.get(page.size() - 1));
+            }
+
+            //then
+            assertEquals(orderIds, walked, "expand=" + expand);
+        }
+    }
+
+    @DisplayName("키셋 페이징 API - limit는 1 ~ 100 으로 보정한다. (기존 offset 방식은 최대값 없음)")
+    @Test
+    public void 커서_limit_보정() throws Exception{
+        String after = start().encode();
+
+        //음수 - 한 건
+        JsonNode negative = getJson("/api/v3/orders?after=" + after + "&limit=-1");
+        assertEquals(1, negative.get("data").size());
+        assertEquals(orderIds.get(0), negative.get("data").get(0).get("orderId").asLong());
+        assertNotNull(negative.get("nextCursor").textValue());
+
+        //너무 큰 값 - 최대 100건
+        JsonNode huge = getJson("/api/v3/orders?after=" + after + "&limit=1000000");
+        assertTrue(huge.get("data").size() <= 100);
+
+        //offset 방식 - 음수는 한 건, 100건이 넘는 limit는 그대로
+        assertEquals(1, getJson("/api/v3/orders?offset=-3&limit=-1").size());
+        Member member = new Member();
+        member.setName("키셋-" + UUID.randomUUID());
+        em.persist(member);
+        for (int i = 0; i < 100; i++) {
+            em.persist(Order.createOrder(member, new Delivery()));
+        }
+        em.flush();
+        em.clear();
+        long total = em.createQuery("select count(o) from Order o", Long.class).getSingleResult();
+        assertEquals(total, getJson("/api/v3/orders?limit=1000000").size());
+    }
+
+    @DisplayName("키셋 페이징 API - 부분 조회(fields)와 같이 요청하면 400")
+    @Test
+    public void 커서_fields_같이요청() throws Exception{
+        mockMvc.perform(get("/api/v3/orders?after=" + start().encode() + "&fields=orderId"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /* 이 테스트의 주문일 바로 앞 - 첫 페이지가 이 테스트의 첫 주문부터 시작한다. */
+    private static OrderCursor start() {
+        return OrderCursor.of(ORDER_DATE.minusSeconds(1), Long.MAX_VALUE);
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,140 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("서비스 로직 - 주문 export")
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderExportTest {
+    private final OrderExportService orderExportService;
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final EntityManager em;
+
+    private Long orderId;
+    private Long emptyOrderId;
+
+    @Autowired
+    public OrderExportTest(OrderExportService orderExportService, MockMvc mockMvc, ObjectMapper objectMapper, EntityManager em) {
+        this.orderExportService = orderExportService;
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.em = em;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("export-" + UUID.randomUUID());
+        member.setAddress(new Address("서울", "한강", "123-45"));
+        em.persist(member);
+
+        Book book1 = createBook("EXPORT1", 10000);
+        Book book2 = createBook("EXPORT2", 20000);
+
+        Order order = Order.createOrder(member, createDelivery(member),
+                OrderItem.createOrderItem(book1, 10000, 1),
+                OrderItem.createOrderItem(book2, 20000, 2));
+        em.persist(order);
+
+        /* 주문상품이 없는 주문 */
+        Order emptyOrder = Order.createOrder(member, createDelivery(member));
+        em.persist(emptyOrder);
+
+        em.flush();
+        em.clear();
+        orderId = order.getId();
+        emptyOrderId = emptyOrder.getId();
+    }
+
+    @DisplayName("주문 export - 주문당 한 줄, 주문상품이 없는 주문도 포함")
+    @Test
+    public void 주문_export() throws Exception{
+        //when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = orderExportService.exportOrders(out);
+
+        //then
+        Map<Long, JsonNode> orders = parse(out.toString(StandardCharsets.UTF_8));
+        assertEquals(exported, orders.size(), "주문 하나가 한 줄로 내보내져야 한다.");
+        assertItemNames(List.of("EXPORT1", "EXPORT2"), orders.get(orderId));
+        assertItemNames(List.of(), orders.get(emptyOrderId));
+    }
+
+    @DisplayName("주문 export - /api/orders/export 는 NDJSON으로 응답")
+    @Test
+    public void 주문_export_API() throws Exception{
+        //when
+        String body = mockMvc.perform(get("/api/orders/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        //then
+        Map<Long, JsonNode> orders = parse(body);
+        assertItemNames(List.of("EXPORT1", "EXPORT2"), orders.get(orderId));
+        assertItemNames(List.of(), orders.get(emptyOrderId));
+    }
+
+    private Map<Long, JsonNode> parse(String ndjson) throws Exception {
+        Map<Long, JsonNode> orders = new HashMap<>();
+        for (String line : ndjson.split("\n")) {
+            JsonNode order = objectMapper.readTree(line);
+            assertNull(orders.put(order.get("orderId").asLong(), order), "같은 주문이 두 줄로 나뉘면 안된다.");
+        }
+        return orders;
+    }
+
+    private static void assertItemNames(List<String> expected, JsonNode order) {
+        assertNotNull(order, "주문이 export 되어야 한다.");
+        List<String> itemNames = order.get("orderItems").findValuesAsText("itemName");
+        assertEquals(expected, itemNames);
+    }
+
+    private Delivery createDelivery(Member member) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        return delivery;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 작업 스레드가 별도 트랜잭션으로 커밋하기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 비동기 주문 접수표 정리")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:intake",//접수표 보관 시간을 줄인 별도 컨텍스트 - 다른 컨텍스트의 데이터베이스와 분리
+        "jpashop.order.intake.ticket-ttl=500ms",
+        "jpashop.order.intake.evict-interval=100ms"
+})
+class OrderIntakeEvictionTest {
+    private final OrderIntakeService orderIntakeService;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderIntakeEvictionTest(OrderIntakeService orderIntakeService, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.orderIntakeService = orderIntakeService;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @DisplayName("접수표 정리 - 큐가 쉬지 않고 차 있어도 만료된 접수표는 지워진다.")
+    @Test
+    public void 접수중_접수표정리() throws Exception{
+        //given - 재고가 없는 상품 (접수는 바로 거절되어 완료된다)
+        Long memberId = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("접수정리-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            return member.getId();
+        });
+        Long itemId = transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("EVICT");
+            book.setPrice(10000);
+            book.setStockQuantity(0);
+            em.persist(book);
+            return book.getId();
+        });
+
+        //when - 3초 동안 poll 시간(200ms)보다 짧은 간격으로 계속 접수
+        OrderTicket first = orderIntakeService.submit(memberId, itemId, 1);
+        int submitted = 1;
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (System.currentTimeMillis() < deadline) {
+            orderIntakeService.submit(memberId, itemId, 1);
+            submitted++;
+            Thread.sleep(5);
+        }
+
+        //then - 최근 (보관 시간 + 정리 주기) 동안의 접수표만 남는다.
+        assertTrue(first.isCompleted());
+        assertTrue(orderIntakeService.findTicket(first.getId()).isEmpty(), "만료된 접수표가 지워져야 한다.");
+        int remaining = orderIntakeService.ticketCount();
+        assertTrue(remaining < submitted / 2, "remaining=" + remaining + ", submitted=" + submitted);
+    }
+}
@@ -0,0 +1,83 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 작업 스레드가 별도 트랜잭션으로 커밋하기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 비동기 주문 접수")
+@SpringBootTest
+class OrderIntakeTest {
+    private final OrderIntakeService orderIntakeService;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderIntakeTest(OrderIntakeService orderIntakeService, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.orderIntakeService = orderIntakeService;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @DisplayName("비동기 주문 - 재고 만큼 주문되고 나머지는 거절")
+    @Test
+    public void 비동기주문() throws Exception{
+        //given - 재고 20, 30건 접수
+        Long memberId = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("접수-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            return member.getId();
+        });
+        Long itemId = transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("ASYNC");
+            book.setPrice(10000);
+            book.setStockQuantity(20);
+            em.persist(book);
+            return book.getId();
+        });
+
+        //when
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tickets.add(orderIntakeService.submit(memberId, itemId, 1));
+        }
+        awaitCompleted(tickets);
+
+        //then
+        List<OrderTicket> ordered = tickets.stream().filter(t -> t.getStatus() == OrderTicket.Status.ORDERED).toList();
+        assertEquals(20, ordered.size());
+        assertEquals(10, tickets.stream().filter(t -> t.getStatus() == OrderTicket.Status.REJECTED).count());
+        assertEquals(tickets.get(0), orderIntakeService.findTicket(tickets.get(0).getId()).orElseThrow());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, em.find(Item.class, itemId).getStockQuantity());
+            ordered.forEach(ticket -> assertNotNull(em.find(Order.class, ticket.getOrderId()), "커밋된 주문이 조회되어야 한다."));
+        });
+    }
+
+    private static void awaitCompleted(List<OrderTicket> tickets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (tickets.stream().anyMatch(ticket -> !ticket.isCompleted())) {
+            assertTrue(System.currentTimeMillis() < deadline, "접수가 처리되지 않았습니다.");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package jpabook.jpashop.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ParallelChunkQuery;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 청크는 다른 스레드의 별도 트랜잭션에서 조회되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. (커밋된 주문만 보인다) */
+@DisplayName("서비스 로직 - 주문상품 청크 병렬 조회")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:parallel",//다른 테스트 컨텍스트의 데이터베이스와 분리
+        "jpashop.order.query.chunk-size=2",
+        "jpashop.order.query.parallelism=3"
+})
+class OrderParallelQueryTest {
+    private final OrderService orderService;
+    private final OrderQueryRepository orderQueryRepository;
+    private final ParallelChunkQuery parallelChunkQuery;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderParallelQueryTest(OrderService orderService, OrderQueryRepository orderQueryRepository, ParallelChunkQuery parallelChunkQuery
+            , EntityManager em, PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.orderQueryRepository = orderQueryRepository;
+        this.parallelChunkQuery = parallelChunkQuery;
+        this.em = em;
+        this.transactionManager = transactionManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("병렬-" + System.nanoTime());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("PARALLEL");
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            em.persist(book);
+            return new Long[]{member.getId(), book.getId()};
+        });
+        for (int i = 1; i <= 5; i++) {
+            orderService.order(ids[0], ids[1], i);
+        }
+    }
+
+    @DisplayName("v5 병렬 조회 - 순서대로 조회한 결과와 같다.")
+    @Test
+    public void 병렬조회_결과() throws Exception{
+        List<OrderQueryDto> expected = transactionTemplate.execute(status -> orderQueryRepository.findAlBylDto_optimization());
+        List<OrderQueryDto> actual = transactionTemplate.execute(status -> orderQueryRepository.findAlBylDto_parallel());
+
+        assertEquals(expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getOrderItems(), actual.get(i).getOrderItems());
+        }
+    }
+
+    @DisplayName("청크 조회 - 청크마다 다른 스레드의 읽기 전용 트랜잭션에서 실행하고 청크 순서대로 합친다.")
+    @Test
+    public void 청크_병렬실행() throws Exception{
+        //given
+        List<Long> ids = LongStream.rangeClosed(1, 9).boxed().toList();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        //when
+        List<Long> result = parallelChunkQuery.findAll(ids, chunk -> {
+            assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            threads.add(Thread.currentThread().getName());
+            return chunk;
+        });
+
+        //then
+        assertEquals(ids, result);
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("chunk-query-")));
+    }
+
+    @DisplayName("청크 조회 - parallelism은 커넥션 풀 크기보다 작아야 한다.")
+    @Test
+    public void 풀크기_검증() throws Exception{
+        assertThrows(IllegalStateException.class,
+                () -> new ParallelChunkQuery(transactionManager, pool(3), 2, 3, Duration.ofSeconds(10)));
+    }
+
+    @DisplayName("청크 조회 - 허용된 호출자 수를 넘으면 호출한 스레드에서 순서대로 조회한다.")
+    @Test
+    public void 호출자_초과시_순서대로() throws Exception{
+        //given - 풀 2, parallelism 1 -> 청크를 나눠 실행할 수 있는 호출자는 한명
+        ParallelChunkQuery chunkQuery = new ParallelChunkQuery(transactionManager, pool(2), 2, 1, Duration.ofSeconds(10));
+        Set<String> callers = ConcurrentHashMap.newKeySet();
+        Set<String> innerThreads = ConcurrentHashMap.newKeySet();
+
+        try {
+            //when - 청크 안에서 다시 청크 조회 (바깥 호출이 허용량을 차지하고 있다)
+            List<Long> result = chunkQuery.findAll(List.of(1L, 2L, 3L, 4L), chunk -> {
+                callers.add(Thread.currentThread().getName());
+                return chunkQuery.findAll(List.of(1L, 2L, 3L), inner -> {
+                    innerThreads.add(Thread.currentThread().getName());
+                    return inner;
+                });
+            });
+
+            //then
+            assertEquals(List.of(1L, 2L, 3L, 1L, 2L, 3L), result);
+            assertEquals(callers, innerThreads, "안쪽 조회는 청크 스레드를 기다리지 않고 호출한 스레드에서 실행되어야 한다.");
+        } finally {
+            chunkQuery.shutdown();
+        }
+    }
+
+    @DisplayName("청크 조회 - 제한 시간을 넘으면 QueryTimeoutException")
+    @Test
+    public void 제한시간_초과() throws Exception{
+        //given
+        ParallelChunkQuery chunkQuery = new ParallelChunkQuery(transactionManager, pool(10), 2, 2, Duration.ofMillis(100));
+
+        try {
+            //when, then
+            assertThrows(QueryTimeoutException.class, () -> chunkQuery.findAll(List.of(1L, 2L, 3L), chunk -> {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return chunk;
+            }));
+        } finally {
+            chunkQuery.shutdown();
+        }
+    }
+
+    /* 풀 크기 확인용 - 커넥션을 얻지 않으므로 풀은 시작되지 않는다. */
+    private static HikariDataSource pool(int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+}
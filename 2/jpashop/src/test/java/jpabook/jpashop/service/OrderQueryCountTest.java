@@ -0,0 +1,237 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
+import jpabook.jpashop.repository.OrderExpand;
+import jpabook.jpashop.repository.OrderField;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.SparseField;
+import jpabook.jpashop.repository.ToOneBatchLoader;
+import jpabook.jpashop.repository.order.query.OrderFlatAssembler;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.support.ExpectedQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("서비스 로직 - 주문 조회 쿼리 수")
+@SpringBootTest
+@Transactional
+class OrderQueryCountTest {
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final ToOneBatchLoader toOneBatchLoader;
+    private final EntityManager em;
+
+    private final List<Long> orderIds = new ArrayList<>();
+    /* 다른 테스트가 커밋한 주문이 섞이지 않도록 이 테스트의 회원 이름으로 검색한다. */
+    private final String memberPrefix = "쿼리수-" + UUID.randomUUID() + "-";
+
+    @Autowired
+    public OrderQueryCountTest(OrderService orderService, OrderRepository orderRepository, OrderQueryRepository orderQueryRepository
+            , ToOneBatchLoader toOneBatchLoader, EntityManager em) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.orderQueryRepository = orderQueryRepository;
+        this.toOneBatchLoader = toOneBatchLoader;
+        this.em = em;
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Member member = new Member();
+            member.setName(memberPrefix + i);
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+
+            for (int j = 0; j < 2; j++) {
+                Book book = new Book();
+                book.setName("BOOK" + i + "-" + j);
+                book.setPrice(10000);
+                book.setStockQuantity(10);
+                em.persist(book);
+
+                orderIds.add(orderService.order(member.getId(), book.getId(), 1));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @DisplayName("주문검색 - 회원, 주문상품, 상품을 조회해도 N+1이 발생하지 않는다.")
+    @Test
+    @ExpectedQueries(max = 3)
+    public void 주문검색_쿼리수() throws Exception{
+        //given
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberPrefix);
+
+        //when
+        List<Order> orders = orderService.findOrders(orderSearch);
+
+        //then
+        assertEquals(10, orders.size());
+        for (Order order : orders) {
+            assertNotNull(order.getMember().getName());
+            for (OrderItem orderItem : order.getOrderItems()) {
+                assertNotNull(orderItem.getItem().getName());
+            }
+        }
+    }
+
+    @DisplayName("주문 플랫 조회 - 주문 단위로 페이징하고, 페이지마다 쿼리 한번으로 주문상품까지 조회")
+    @Test
+    @ExpectedQueries(max = 3)
+    public void 플랫조회_페이징() throws Exception{
+        //given
+        List<OrderQueryDto> all = OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat());
+
+        //when
+        List<OrderQueryDto> first = OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat(0, 3));
+        List<OrderQueryDto> second = OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat(3, 3));
+
+        //then - 주문 중간에서 잘리지 않고, 전체 조회와 같은 순서
+        assertEquals(all.subList(0, 3), first);
+        assertEquals(all.subList(3, 6), second);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(all.get(i).getOrderItems(), first.get(i).getOrderItems());
+            assertEquals(all.get(i + 3).getOrderItems(), second.get(i).getOrderItems());
+        }
+    }
+
+    @DisplayName("주문 플랫 조회 - 주문상품이 없는 주문도 페이지에 포함되어 페이지가 짧아지지 않는다.")
+    @Test
+    public void 플랫조회_주문상품없는_주문() throws Exception{
+        //given
+        Member member = orderRepository.findOne(orderIds.get(0)).getMember();
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order emptyOrder = Order.createOrder(member, delivery);
+        em.persist(emptyOrder);
+        em.flush();
+        em.clear();
+        int offset = em.createQuery("select count(o) from Order o where o.id < :id", Long.class)
+                .setParameter("id", emptyOrder.getId())
+                .getSingleResult()
+                .intValue();
+
+        //when - 주문상품이 없는 주문을 가운데 둔 페이지
+        List<OrderQueryDto> page = OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat(offset - 2, 3));
+
+        //then
+        assertEquals(3, page.size());
+        assertEquals(emptyOrder.getId(), page.get(2).getOrderId());
+        assertTrue(page.get(2).getOrderItems().isEmpty());
+        assertEquals(OrderFlatAssembler.assemble(orderQueryRepository.findAlBylDto_flat()).subList(offset - 2, offset + 1), page);
+    }
+
+    @DisplayName("주문 DTO 변환 - 회원, 배송, 상품을 타입별로 한번에 조회한 뒤에는 쿼리가 실행되지 않는다.")
+    @Test
+    @ExpectedQueries(max = 5)
+    public void 연관관계_배치로딩() throws Exception{
+        /* ToOneBatchLoader는 요청 범위 빈이다. */
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            //given
+            List<Order> orders = em.createQuery("select o from Order o where o.id in :ids", Order.class)
+                    .setParameter("ids", orderIds)
+                    .getResultList();
+
+            //when
+            for (Order order : orders) {
+                toOneBatchLoader.register(order.getMember());
+                toOneBatchLoader.register(order.getDelivery());
+            }
+            toOneBatchLoader.load();
+            for (Order order : orders) {
+                order.getOrderItems().forEach(orderItem -> toOneBatchLoader.register(orderItem.getItem()));
+            }
+            toOneBatchLoader.load();
+
+            //then
+            QueryCount count = QueryCounter.start();
+            try {
+                for (Order order : orders) {
+                    assertNotNull(order.getMember().getName());
+                    assertNotNull(order.getDelivery().getAddress());
+                    for (OrderItem orderItem : order.getOrderItems()) {
+                        assertNotNull(orderItem.getItem().getName());
+                    }
+                }
+            } finally {
+                QueryCounter.stop(count);
+            }
+            assertEquals(10, orders.size());
+            assertEquals(0, count.getStatements());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @DisplayName("주문 엔티티 그래프 - 컬렉션까지 fetch 해도 주문 단위로 페이징하고 쿼리는 한번")
+    @Test
+    @ExpectedQueries(max = 1)
+    public void 엔티티그래프_페이징() throws Exception{
+        //when
+        List<Order> orders = orderRepository.findAll(OrderExpand.parse("member, delivery,ITEMS"), 1, 3);
+
+        //then
+        assertEquals(3, orders.size());
+        assertTrue(orders.get(0).getId() < orders.get(1).getId() && orders.get(1).getId() < orders.get(2).getId());
+        for (Order order : orders) {
+            assertNotNull(order.getMember().getName());
+            assertNotNull(order.getDelivery().getAddress());
+            for (OrderItem orderItem : order.getOrderItems()) {
+                assertNotNull(orderItem.getItem().getName());
+            }
+        }
+    }
+
+    @DisplayName("주문 엔티티 그래프 - 지원하지 않는 expand")
+    @Test
+    public void 잘못된_expand() throws Exception{
+        assertThrows(IllegalArgumentException.class, () -> OrderExpand.parse("member,payment"));
+    }
+
+    @DisplayName("주문 부분 조회 - 요청한 필드만 쿼리 한번으로 조회")
+    @Test
+    @ExpectedQueries(max = 1)
+    public void 부분_조회() throws Exception{
+        //when
+        List<Tuple> tuples = orderRepository.findAll(SparseField.parse(OrderField.class, "orderId,name,orderStatus"), 0, 3);
+
+        //then
+        assertEquals(3, tuples.size());
+        for (Tuple tuple : tuples) {
+            assertEquals(List.of("orderId", "name", "orderStatus")
+                    , tuple.getElements().stream().map(e -> e.getAlias()).toList());
+            assertInstanceOf(Long.class, tuple.get("orderId"));
+            assertInstanceOf(OrderStatus.class, tuple.get("orderStatus"));
+        }
+    }
+}
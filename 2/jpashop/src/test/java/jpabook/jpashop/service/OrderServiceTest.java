@@ -9,12 +9,16 @@ import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -49,6 +53,7 @@ class OrderServiceTest {
         assertEquals(getOrder.getStatus(), OrderStatus.ORDER, "상품 주문시 상태");
         assertEquals(1, getOrder.getOrderItems().size(), "주문환 상품 종류 수");
         assertEquals(10000*orderCount, getOrder.getTotalPrice(), "주문 가격은 가격 * 수량");
+        assertEquals(1, getOrder.getItemCount(), "주문상품 수");
         assertEquals(8, book.getStockQuantity(), "주문수량 만큼 재고가 줄어야한다.");
     }
 
@@ -73,6 +78,41 @@ class OrderServiceTest {
         assertEquals(10, item.getStockQuantity(), "주문취소로 수량 원복");
     }
 
+    @DisplayName("주문 - 주문 금액은 주문상품을 로딩하지 않고 조회, 취소해도 유지")
+    @Test
+    public void 주문금액_저장() throws Exception{
+        //given
+        Member member = createMember();
+        Book book = createBook("JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 3);
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        //when
+        Order getOrder = orderRepository.findOne(orderId);
+
+        //then
+        assertEquals(30000, getOrder.getTotalPrice());
+        assertEquals(1, getOrder.getItemCount());
+        assertFalse(Hibernate.isInitialized(getOrder.getOrderItems()), "주문상품 컬렉션을 로딩하지 않는다.");
+    }
+
+    @DisplayName("주문 - 이미 취소된 주문 취소")
+    @Test
+    public void 이미취소된_주문_취소() throws Exception{
+        //given
+        Member member = createMember();
+        Item item = createBook("JPA", 10000, 10);
+
+        Long orderId = orderService.order(member.getId(), item.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(orderId));
+        assertEquals(10, item.getStockQuantity(), "재고는 한번만 복구되어야 한다.");
+    }
+
     @DisplayName("주문 - 재고수량초과")
     @Test()
     public void 상품주문_재고수량초과() throws Exception{
@@ -89,6 +129,56 @@ class OrderServiceTest {
         });
     }
 
+    @DisplayName("주문 - 주문검색")
+    @Test
+    public void 주문검색() throws Exception{
+        //given
+        Member member = createMember();
+        Book book = createBook("JPA", 10000, 10);
+
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("회원");
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+        orderSearch.setItemName("JP");
+        orderSearch.setOrderDateFrom(LocalDate.now());
+        orderSearch.setOrderDateTo(LocalDate.now());
+
+        OrderSearch cancelSearch = new OrderSearch();
+        cancelSearch.setMemberName("회원");
+        cancelSearch.setOrderStatus(OrderStatus.CANCEL);
+
+        //when
+        Order getOrder = orderRepository.findOne(orderId);
+
+        //then
+        assertTrue(orderService.findOrders(orderSearch).contains(getOrder), "검색 조건에 맞는 주문이 조회되어야 한다.");
+        assertFalse(orderService.findOrders(cancelSearch).contains(getOrder), "주문상태가 다르면 조회되지 않아야 한다.");
+    }
+
+    @DisplayName("주문 - 주문검색, 검색어의 %, _ 는 문자 그대로 앞부분 일치")
+    @Test
+    public void 주문검색_와일드카드() throws Exception{
+        //given
+        Member member = createMember();
+        member.setName("할인_50%\\회원");
+        Book book = createBook("JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        Order getOrder = orderRepository.findOne(orderId);
+
+        //then
+        assertTrue(orderService.findOrders(memberNameSearch("할인_50%\\")).contains(getOrder), "입력한 문자 그대로 앞부분이 같으면 조회되어야 한다.");
+        assertFalse(orderService.findOrders(memberNameSearch("%회원")).contains(getOrder), "%는 와일드카드로 동작하지 않아야 한다.");
+        assertFalse(orderService.findOrders(memberNameSearch("할_")).contains(getOrder), "_는 와일드카드로 동작하지 않아야 한다.");
+    }
+
+    private static OrderSearch memberNameSearch(String memberName) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        return orderSearch;
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -0,0 +1,49 @@
+package jpabook.jpashop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 컬럼이 추가되기 전의 ordes, order_item 테이블에 db/order-total-price.sql 을 실행한다. (스프링 컨텍스트 없이 별도 H2 데이터베이스) */
+@DisplayName("서비스 로직 - 주문 금액 컬럼 추가 스크립트")
+class OrderTotalMigrationTest {
+
+    @DisplayName("주문 금액 컬럼 추가 - 기존 주문은 주문상품으로 채우고, 주문상품이 없는 주문은 0")
+    @Test
+    public void 기존주문_채우기() throws Exception{
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:order-total-price", "sa", "");
+             Statement statement = connection.createStatement()) {
+            //given
+            statement.execute("create table ordes (order_id bigint primary key, status varchar(255))");
+            statement.execute("create table order_item (order_item_id bigint primary key, order_id bigint, order_price integer not null, count integer not null)");
+            statement.execute("insert into ordes values (1, 'ORDER'), (2, 'ORDER')");
+            statement.execute("insert into order_item values (1, 1, 10000, 2), (2, 1, 5000, 1)");
+
+            //when - 두번 실행해도 같은 결과
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/order-total-price.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/order-total-price.sql"));
+
+            //then
+            assertTotal(statement, 1, 25000, 2);
+            assertTotal(statement, 2, 0, 0);
+            assertThrows(SQLException.class, () -> statement.execute("insert into ordes (order_id, status) values (3, 'ORDER')"), "새 컬럼은 not null");
+        }
+    }
+
+    private static void assertTotal(Statement statement, long orderId, int totalPrice, int itemCount) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("select total_price, item_count from ordes where order_id = " + orderId)) {
+            assertTrue(rs.next());
+            assertEquals(totalPrice, rs.getInt("total_price"));
+            assertEquals(itemCount, rs.getInt("item_count"));
+        }
+    }
+}
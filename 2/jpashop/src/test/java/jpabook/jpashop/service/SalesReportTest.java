@@ -0,0 +1,146 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.dto.OrderCommand;
+import jpabook.jpashop.dto.SalesReportDto;
+import jpabook.jpashop.repository.SalesReportGroup;
+import jpabook.jpashop.support.ExpectedQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 매출 집계는 커밋 직전에 반영되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다.
+* 다른 테스트의 주문과 섞이지 않도록 테스트마다 새 상품으로 주문한다.
+* 집계 row를 만들 때 연결을 하나 더 잡지 않는지 확인하기 위해 커넥션 풀을 1개로 줄인 별도 컨텍스트에서 실행한다. */
+@DisplayName("서비스 로직 - 매출 집계")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sales",//다른 컨텍스트의 데이터베이스와 분리
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000"
+})
+class SalesReportTest {
+    private final OrderService orderService;
+    private final SalesReportService salesReportService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    private Long memberId;
+    private Long itemId;
+    private LocalDate today;
+
+    @Autowired
+    public SalesReportTest(OrderService orderService, SalesReportService salesReportService, JdbcTemplate jdbcTemplate
+            , EntityManager em, PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.salesReportService = salesReportService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("매출-" + System.nanoTime());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            memberId = member.getId();
+
+            Book book = new Book();
+            book.setName("SALES");
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            em.persist(book);
+            itemId = book.getId();
+        });
+    }
+
+    @DisplayName("매출 집계 - 주문하면 더하고, 취소하면 주문일의 CANCEL로 옮긴다.")
+    @Test
+    public void 주문_취소_반영() throws Exception{
+        //given
+        Long orderId = orderService.order(memberId, itemId, 2);
+        orderService.order(memberId, itemId, 1);
+
+        //when
+        orderService.cancelOrder(orderId);
+
+        //then
+        assertEquals(List.of(
+                SalesReportDto.of(today, itemId, OrderStatus.CANCEL, 2, 20000)
+                , SalesReportDto.of(today, itemId, OrderStatus.ORDER, 1, 10000)
+        ), sales());
+    }
+
+    @DisplayName("매출 집계 - 대량 주문은 트랜잭션마다 상품별로 합쳐서 반영")
+    @Test
+    public void 대량주문_반영() throws Exception{
+        //given
+        List<OrderCommand> commands = List.of(
+                OrderCommand.of(memberId, itemId, 1)
+                , OrderCommand.of(memberId, itemId, 3)
+        );
+
+        //when
+        orderService.placeOrders(commands);
+
+        //then
+        assertEquals(List.of(SalesReportDto.of(today, itemId, OrderStatus.ORDER, 4, 40000)), sales());
+    }
+
+    @DisplayName("매출 집계 - 재생성하면 원본 주문에서 같은 값으로 다시 만든다.")
+    @Test
+    public void 재생성() throws Exception{
+        //given - 집계가 어긋난 상태
+        Long orderId = orderService.order(memberId, itemId, 2);
+        orderService.order(memberId, itemId, 5);
+        orderService.cancelOrder(orderId);
+        List<SalesReportDto> expected = sales();
+        jdbcTemplate.update("update daily_item_sales set quantity = 0, revenue = 0 where item_id = ?", itemId);
+
+        //when
+        salesReportService.rebuild(null, null);
+
+        //then
+        assertEquals(expected, sales());
+    }
+
+    @DisplayName("매출 조회 - 집계 테이블만 쿼리 한번으로 조회")
+    @Test
+    @ExpectedQueries(max = 1)
+    public void 일자별_조회() throws Exception{
+        List<SalesReportDto> sales = salesReportService.findSales(today, today, null, OrderStatus.ORDER, SalesReportGroup.DAY);
+
+        sales.forEach(dto -> assertNull(dto.itemId()));
+    }
+
+    @DisplayName("매출 조회 - 잘못된 기간")
+    @Test
+    public void 잘못된_기간() throws Exception{
+        assertThrows(IllegalArgumentException.class,
+                () -> salesReportService.findSales(today, today.minusDays(1), null, null, SalesReportGroup.DAY_ITEM));
+        assertThrows(IllegalArgumentException.class,
+                () -> salesReportService.findSales(today.minusYears(2), today, null, null, SalesReportGroup.DAY_ITEM));
+    }
+
+    private List<SalesReportDto> sales() {
+        return salesReportService.findSales(today, today, itemId, null, SalesReportGroup.DAY_ITEM);
+    }
+}
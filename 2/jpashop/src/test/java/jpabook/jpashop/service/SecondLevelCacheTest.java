@@ -0,0 +1,168 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* 2차 캐시는 커밋된 뒤에 반영되기 때문에 테스트 트랜잭션(@Transactional)을 사용하지 않는다. */
+@DisplayName("서비스 로직 - 2차 캐시")
+@SpringBootTest
+class SecondLevelCacheTest {
+    private final OrderService orderService;
+    private final ItemService itemService;
+    private final EntityManager em;
+    private final Cache cache;
+    private final SessionFactory sessionFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SecondLevelCacheTest(OrderService orderService, ItemService itemService, EntityManager em
+            , EntityManagerFactory emf, PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.itemService = itemService;
+        this.em = em;
+        this.cache = emf.getCache();
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @DisplayName("2차 캐시 - 상품, 회원은 DB 대신 캐시에서 조회")
+    @Test
+    public void 상품_회원_캐시조회() throws Exception{
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        cache.evictAll();
+        CacheRegionStatistics itemRegion = sessionFactory.getStatistics().getCacheRegionStatistics(Item.CACHE_REGION);
+        long hits = itemRegion.getHitCount();
+
+        //when - 첫 조회는 DB, 두번째 조회는 캐시
+        findItem(itemId);
+        findItem(itemId);
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId));
+
+        //then
+        assertTrue(cache.contains(Item.class, itemId));
+        assertTrue(cache.contains(Member.class, memberId));
+        assertEquals(hits + 1, itemRegion.getHitCount(), "두번째 조회는 캐시에서 가져와야 한다.");
+    }
+
+    @DisplayName("2차 캐시 - 주문으로 재고가 변경되면 해당 상품만 캐시에서 무효화")
+    @Test
+    public void 주문_재고변경_캐시무효화() throws Exception{
+        //given - 두 상품 모두 캐시에 있는 상태
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long otherItemId = createBook(10);
+        findItem(itemId);
+        findItem(otherItemId);
+        assertTrue(cache.contains(Item.class, itemId));
+
+        //when
+        orderService.order(memberId, itemId, 3);
+
+        //then - 주문한 상품만 무효화되고 다시 조회하면 변경된 재고가 보인다.
+        /* READ_WRITE 소프트 락은 커밋 후에도 락 항목으로 남아 있어서 (이전 트랜잭션의 오래된 값 put 방지)
+        * contains()가 아니라 조회시 캐시 미스 여부로 무효화를 확인한다. */
+        CacheRegionStatistics itemRegion = sessionFactory.getStatistics().getCacheRegionStatistics(Item.CACHE_REGION);
+        long hits = itemRegion.getHitCount();
+        long misses = itemRegion.getMissCount();
+        assertEquals(7, findItem(itemId).getStockQuantity());
+        assertEquals(misses + 1, itemRegion.getMissCount(), "주문한 상품은 DB에서 다시 조회해야 한다.");
+        findItem(otherItemId);
+        assertEquals(hits + 1, itemRegion.getHitCount(), "다른 상품의 캐시는 유지되어야 한다.");
+        assertEquals(7, findItem(itemId).getStockQuantity());
+        assertEquals(hits + 2, itemRegion.getHitCount(), "다시 조회한 값은 캐시에 올라가야 한다.");
+    }
+
+    @DisplayName("2차 캐시 - 엔티티로 수정하면 커밋 후 캐시에 반영")
+    @Test
+    public void 상품수정_캐시반영() throws Exception{
+        //given
+        Long itemId = createBook(10);
+        findItem(itemId);
+
+        //when
+        Book param = new Book();
+        param.setName("수정");
+        param.setPrice(20000);
+        param.setStockQuantity(5);
+        itemService.updateItem(itemId, param, 10);
+
+        //then
+        Item item = findItem(itemId);
+        assertEquals("수정", item.getName());
+        assertEquals(5, item.getStockQuantity());
+    }
+
+    @DisplayName("2차 캐시 - 하위 카테고리 컬렉션 캐시")
+    @Test
+    public void 하위카테고리_컬렉션캐시() throws Exception{
+        //given
+        Long parentId = transactionTemplate.execute(status -> {
+            Category parent = new Category();
+            parent.setName("도서");
+            Category child = new Category();
+            child.setName("소설");
+            parent.addChildCategory(child);
+            em.persist(parent);
+            em.persist(child);
+            return parent.getId();
+        });
+        CacheRegionStatistics childRegion = sessionFactory.getStatistics()
+                .getCacheRegionStatistics(Category.CHILD_CACHE_REGION);
+        long hits = childRegion.getHitCount();
+
+        //when
+        for (int i = 0; i < 2; i++) {
+            int size = transactionTemplate.execute(status -> em.find(Category.class, parentId).getChild().size());
+            assertEquals(1, size);
+        }
+
+        //then
+        assertTrue(cache.contains(Category.class, parentId));
+        assertEquals(hits + 1, childRegion.getHitCount(), "두번째 조회는 컬렉션 캐시에서 가져와야 한다.");
+    }
+
+    private Item findItem(Long itemId) {
+        return transactionTemplate.execute(status -> em.find(Item.class, itemId));
+    }
+
+    private Long createMember() {
+        return transactionTemplate.execute(status -> {
+            Member member = new Member();
+            member.setName("캐시-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "한강", "123-45"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Long createBook(int stockQuantity) {
+        return transactionTemplate.execute(status -> {
+            Book book = new Book();
+            book.setName("캐시");
+            book.setPrice(10000);
+            book.setStockQuantity(stockQuantity);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+}
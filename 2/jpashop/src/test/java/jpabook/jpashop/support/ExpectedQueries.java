@@ -0,0 +1,18 @@
+package jpabook.jpashop.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/* 테스트 메서드 본문에서 실행된 SQL 수가 max를 넘으면 테스트를 실패시킨다.
+* @BeforeEach에서 실행된 SQL은 세지 않는다.
+* ex) @ExpectedQueries(max = 3) */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(ExpectedQueriesExtension.class)
+public @interface ExpectedQueries {
+    int max();
+}
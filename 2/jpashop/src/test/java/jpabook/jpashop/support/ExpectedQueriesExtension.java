@@ -0,0 +1,31 @@
+package jpabook.jpashop.support;
+
+import jpabook.jpashop.monitor.QueryCount;
+import jpabook.jpashop.monitor.QueryCounter;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpectedQueriesExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(ExpectedQueriesExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), QueryCounter.start());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCount count = context.getStore(NAMESPACE).remove(context.getUniqueId(), QueryCount.class);
+        if (count == null) {
+            return;
+        }
+        QueryCounter.stop(count);
+
+        ExpectedQueries expected = context.getRequiredTestMethod().getAnnotation(ExpectedQueries.class);
+        assertTrue(count.getStatements() <= expected.max()
+                , "실행된 SQL 수가 기대값을 넘었습니다. expected max=" + expected.max() + ", actual " + count);
+    }
+}